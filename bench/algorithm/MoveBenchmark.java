@@ -0,0 +1,80 @@
+package algorithm;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class benchmarks the move generation and sowing of the kalah game:
+ * Position.sow, Board.transfer, Game.move and Player.getMoves. Each
+ * benchmark plays every legal move of the start position.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveBenchmark {
+
+    /**
+     * The number of seeds in each store at the start of the game.
+     */
+    @Param({"3", "4", "6"})
+    public int seeds;
+
+    private Position start;
+    private Position position;
+    private int[] board;
+    private Board sim;
+    private Game game;
+    private Player player;
+
+    @Setup
+    public void setUp() {
+        start = new Position(seeds);
+        position = new Position();
+        board = start.toIntArray();
+        sim = new Board();
+        game = new Game(new Player(1), new Player(2));
+        player = new Player(1);
+    }
+
+    @Benchmark
+    public void positionSow(Blackhole blackhole) {
+        for (int move = 0; move < Position.STORES; move++) {
+            position.copyFrom(start);
+            blackhole.consume(position.sow(move));
+        }
+    }
+
+    @Benchmark
+    public void boardTransfer(Blackhole blackhole) {
+        for (int move = 0; move < Position.STORES; move++)
+            blackhole.consume(sim.transfer(move, 1, board));
+    }
+
+    @Benchmark
+    public void gameMove(Blackhole blackhole) {
+        for (int store = 1; store <= Position.STORES; store++) {
+            game.getPosition().copyFrom(start);
+            blackhole.consume(game.move(store, 1));
+        }
+    }
+
+    @Benchmark
+    public Object playerGetMoves() {
+        return player.getMoves(1, board);
+    }
+}
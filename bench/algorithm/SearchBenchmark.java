@@ -0,0 +1,87 @@
+package algorithm;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class benchmarks full searches from the start position: a
+ * Player.makePlay at several depths and seed counts, and a perft count
+ * of every move sequence that reports nodes per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"3", "4", "6"})
+    public int seeds;
+
+    @Param({"6", "8", "10"})
+    public int depth;
+
+    private int[] board;
+    private Player player;
+    private Position start;
+    private Perft perft;
+
+    /**
+     * This class reports the nodes visited by the perft benchmark so JMH
+     * prints them as a rate next to the time per walk.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Nodes {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        board = new Position(seeds).toIntArray();
+        player = new Player(1);
+        player.setDepth(depth);
+        start = new Position(seeds);
+        perft = new Perft(false);
+    }
+
+    /**
+     * The table is emptied before each play so every play searches the
+     * whole tree.
+     */
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        player.getSearch().getTable().clear();
+    }
+
+    @Benchmark
+    public int makePlay() {
+        return player.makePlay(board);
+    }
+
+    @Benchmark
+    public long perft(Nodes counter) {
+        long nodes = perft.perft(start, depth);
+        counter.nodes += nodes;
+        return nodes;
+    }
+}
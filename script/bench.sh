@@ -0,0 +1,26 @@
+#!/usr/bin/env bash
+# Compiles the engine and the JMH benchmarks under bench/ and runs them.
+# JMH_CP must list the JMH jars (jmh-core, jmh-generator-annprocess,
+# jopt-simple and commons-math3). Arguments are passed to JMH, e.g.
+#
+#     JMH_CP=$(echo lib/jmh/*.jar | tr ' ' ':') script/bench.sh SearchBenchmark -p seeds=3
+
+readonly SCRIPTDIR=$( cd "$( dirname "${BASH_SOURCE[0]}" )" && pwd )
+readonly PROJECTDIR=${SCRIPTDIR}/..
+readonly SRCDIR=${PROJECTDIR}/src
+readonly BENCHDIR=${PROJECTDIR}/bench
+readonly BUILDDIR=${PROJECTDIR}/build/bench
+
+if [ -z "${JMH_CP}" ]; then
+    echo "JMH_CP must list the JMH jars"
+    exit 1
+fi
+
+if ! [ -d ${BUILDDIR} ]; then
+    mkdir -p ${BUILDDIR}
+fi
+
+javac -d ${BUILDDIR} ${SRCDIR}/algorithm/*.java || exit 1
+javac -cp ${BUILDDIR}:${JMH_CP} -d ${BUILDDIR} ${BENCHDIR}/*/*.java || exit 1
+
+java -cp ${BUILDDIR}:${JMH_CP} org.openjdk.jmh.Main "$@"
@@ -0,0 +1,144 @@
+package algorithm;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class represents a search over many boards at once. The boards are
+ * passed as one flat array of 14 integers per board and are shared out to
+ * a pool of threads, each running its own search with its own
+ * transposition table, so a caller that crosses a language bridge pays for
+ * one call instead of one per board. The threads take the next unsearched
+ * board as they finish, so slow boards do not hold up the rest.
+ */
+public class BatchSearch {
+
+    private final Search template;
+    private final Search[] workers;
+    /**
+     * The transposition table of each worker, or null.
+     */
+    private final TranspositionTable[] tables;
+    private final Position[] positions;
+    private final ExecutorService pool;
+    private final Future<?>[] futures;
+
+    /**
+     * This constructor creates a batch search whose workers copy the
+     * evaluator, depth and databases of the given search at the start of
+     * every batch. Each worker gets a transposition table of the same size
+     * as the search's, if it has one.
+     * @param template The search to copy the settings of.
+     * @param threads An integer that represents the number of threads.
+     */
+    public BatchSearch(Search template, int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be at least 1: " + threads);
+        this.template = template;
+        this.workers = new Search[threads];
+        this.tables = new TranspositionTable[threads];
+        this.positions = new Position[threads];
+        this.futures = new Future<?>[threads];
+        TranspositionTable table = template.getTable();
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Search(template.getEvaluator(), template.getDepth());
+            if (table != null)
+                tables[i] = new TranspositionTable(table.size());
+            positions[i] = new Position();
+        }
+        this.pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "kalah-batch");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * This method searches every board to the depth of the workers.
+     * @param boards An array of 14 integers per board representing the
+     * seeds in each piece.
+     * @param players An array of integers, either 1 or 2, that represent
+     * the player to move on each board.
+     * @return An array with an integer from 0 to 5 for each board that
+     * represents the best store relative to the player to move, or -1 if
+     * the game is over.
+     */
+    public int[] search(int[] boards, int[] players) {
+        return search(boards, players, 0);
+    }
+
+    /**
+     * This method searches every board with iterative deepening until the
+     * time budget of each board expires.
+     * @param boards An array of 14 integers per board representing the
+     * seeds in each piece.
+     * @param players An array of integers, either 1 or 2, that represent
+     * the player to move on each board.
+     * @param millis A long that represents the time budget for each board
+     * in milliseconds, or 0 to search to the depth of the workers.
+     * @return An array with an integer from 0 to 5 for each board that
+     * represents the best store relative to the player to move, or -1 if
+     * the game is over.
+     */
+    public int[] search(final int[] boards, final int[] players, final long millis) {
+        if (boards.length % Position.PIECES != 0)
+            throw new IllegalArgumentException("boards must hold " + Position.PIECES
+                    + " pieces per board: " + boards.length);
+        final int count = boards.length / Position.PIECES;
+        if (players.length != count)
+            throw new IllegalArgumentException(count + " boards but " + players.length + " players");
+
+        final int[] moves = new int[count];
+        final AtomicInteger next = new AtomicInteger();
+        for (int i = 0; i < workers.length; i++) {
+            final Search worker = workers[i];
+            // scores stored under another evaluator are no longer valid
+            boolean changed = worker.getEvaluator() != template.getEvaluator();
+            worker.configure(template);
+            worker.setTable(tables[i]);
+            if (changed && tables[i] != null)
+                tables[i].clear();
+            final Position position = positions[i];
+            futures[i] = pool.submit(new Runnable() {
+                public void run() {
+                    int board;
+                    while ((board = next.getAndIncrement()) < count) {
+                        position.set(boards, board * Position.PIECES, players[board]);
+                        if (position.isGameOver())
+                            moves[board] = -1;
+                        else if (millis == 0)
+                            moves[board] = worker.search(position);
+                        else
+                            moves[board] = worker.search(position, millis);
+                    }
+                }
+            });
+        }
+
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (Exception e) {
+                throw new IllegalStateException("batch search failed", e);
+            }
+        }
+        return moves;
+    }
+
+    public int getThreads() {
+        return workers.length;
+    }
+
+    /**
+     * This method stops the worker threads. The search cannot be used
+     * afterwards.
+     */
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
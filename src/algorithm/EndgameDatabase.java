@@ -0,0 +1,283 @@
+package algorithm;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class represents an endgame database of the kalah game. For every
+ * position with up to a maximum number of seeds left in the stores it
+ * holds the exact result of perfect play from that position: the seeds the
+ * player to move will gain over the opponent until the game is over. The
+ * seeds already in the houses do not change how the rest of the game is
+ * played, so they are not part of the position.
+ * <p>
+ * Positions are indexed by their {@link PositionIndex}, a combinatorial
+ * number of the seeds in the twelve stores read from the point of view of
+ * the player to move, so a position and its mirror share an entry. The
+ * values are solved forward with memoization: every move either moves
+ * seeds into a house, which leads to a smaller endgame, or moves seeds
+ * towards the players own house, so the positions can never repeat. The
+ * database is written to a file and read back through a memory-mapped
+ * buffer. It covers the standard board of six stores a side; positions
+ * of other boards are never found in it.
+ * <p>
+ * Usage: {@code java algorithm.EndgameDatabase <maxSeeds> <file>}.
+ */
+public class EndgameDatabase {
+
+    /**
+     * The value returned by {@link #probe(Position)} for positions outside
+     * the database.
+     */
+    public static final int NO_VALUE = Integer.MIN_VALUE;
+
+    /**
+     * The largest number of seeds a database can be built for.
+     */
+    public static final int MAX_SEEDS = 24;
+
+    private static final int MAGIC = 0x4B454442;
+    private static final int VERSION = 1;
+    private static final int HEADER = 12;
+    private static final byte UNKNOWN = Byte.MIN_VALUE;
+
+    /**
+     * The number of stores the seeds are spread over.
+     */
+    private static final int PITS = 2 * Position.STORES;
+
+    private final int maxSeeds;
+    private final PositionIndex index;
+    /**
+     * The value of every position, indexed by its {@link PositionIndex}.
+     */
+    private final ByteBuffer values;
+
+    private EndgameDatabase(int maxSeeds, ByteBuffer values) {
+        this.maxSeeds = maxSeeds;
+        this.values = values;
+        this.index = new PositionIndex(maxSeeds);
+    }
+
+    /**
+     * This method solves every position with up to the given number of
+     * seeds in the stores.
+     * @param maxSeeds An integer that represents the most seeds in play.
+     * @return The solved database held in memory.
+     */
+    public static EndgameDatabase build(int maxSeeds) {
+        if (maxSeeds < 0 || maxSeeds > MAX_SEEDS)
+            throw new IllegalArgumentException("maxSeeds must be between 0 and " + MAX_SEEDS);
+        EndgameDatabase database = new EndgameDatabase(maxSeeds, null);
+        byte[] values = new byte[(int) database.size()];
+        Arrays.fill(values, UNKNOWN);
+        new Solver(database, values).solveAll();
+        return new EndgameDatabase(maxSeeds, ByteBuffer.wrap(values));
+    }
+
+    /**
+     * This method opens a database file by mapping it into memory.
+     * @param file The file written by {@link #write(File)}.
+     * @return The database backed by the file.
+     * @throws IOException if the file cannot be read or is not a database.
+     */
+    public static EndgameDatabase open(File file) throws IOException {
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                throw new IOException(file + " is not an endgame database");
+            int maxSeeds = in.readInt();
+            if (maxSeeds < 0 || maxSeeds > MAX_SEEDS)
+                throw new IOException(file + " has an invalid seed count " + maxSeeds);
+            EndgameDatabase header = new EndgameDatabase(maxSeeds, null);
+            long size = header.size();
+            if (in.length() != HEADER + size)
+                throw new IOException(file + " is truncated");
+            ByteBuffer values = in.getChannel().map(FileChannel.MapMode.READ_ONLY, HEADER, size);
+            return new EndgameDatabase(maxSeeds, values);
+        } finally {
+            // the mapping stays valid after the file is closed
+            in.close();
+        }
+    }
+
+    /**
+     * This method writes the database to a file.
+     * @param file The file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(File file) throws IOException {
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(maxSeeds);
+            int size = (int) size();
+            for (int i = 0; i < size; i++)
+                out.writeByte(values.get(i));
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * This method looks up the result of perfect play from a position.
+     * @param position The position to look up.
+     * @return The seeds the player to move gains over the opponent from
+     * the stores until the game is over, or NO_VALUE if the game is over
+     * or more seeds are in play than the database holds. Only positions of
+     * the standard board are held, whatever seeds they started with.
+     */
+    public int probe(Position position) {
+        if (position.getTurn() == 0 || position.getStores() != Position.STORES)
+            return NO_VALUE;
+        int seeds = position.side(1) + position.side(2);
+        if (seeds > maxSeeds)
+            return NO_VALUE;
+        return values.get((int) index(position, seeds));
+    }
+
+    /**
+     * @param position A position that is not over.
+     * @return true if the position has few enough seeds in play to be in
+     * the database.
+     */
+    public boolean contains(Position position) {
+        return position.getTurn() != 0 && position.getStores() == Position.STORES
+                && position.side(1) + position.side(2) <= maxSeeds;
+    }
+
+    public int getMaxSeeds() {
+        return maxSeeds;
+    }
+
+    /**
+     * @return The number of positions in the database.
+     */
+    public long size() {
+        return index.size();
+    }
+
+    long offset(int seeds) {
+        return index.offset(seeds);
+    }
+
+    long index(Position position, int seeds) {
+        return index.index(position, seeds);
+    }
+
+    /**
+     * This class solves the positions of a database being built.
+     */
+    private static class Solver {
+
+        private final EndgameDatabase database;
+        private final byte[] values;
+        /**
+         * A stack of positions, one per level of the recursion.
+         */
+        private final List<Position> stack;
+
+        Solver(EndgameDatabase database, byte[] values) {
+            this.database = database;
+            this.values = values;
+            this.stack = new ArrayList<Position>();
+        }
+
+        /**
+         * This method solves the positions in order of the seeds in play,
+         * spreading each seed count over the stores in every possible way.
+         */
+        void solveAll() {
+            for (int seeds = 0; seeds <= database.maxSeeds; seeds++)
+                spread(0, seeds);
+        }
+
+        /**
+         * This method places seeds into the store of the given number and
+         * every store after it, then solves the position.
+         */
+        private void spread(int store, int seeds) {
+            Position position = level(0);
+            int piece = store < Position.STORES ? store : store + 1;
+            if (store == PITS - 1) {
+                position.put(piece, seeds);
+                position.put(6, 0);
+                position.put(13, 0);
+                position.setTurn(1);
+                solve(0);
+                return;
+            }
+            for (int count = 0; count <= seeds; count++) {
+                position.put(piece, count);
+                spread(store + 1, seeds - count);
+            }
+        }
+
+        /**
+         * This method is responsible for solving the position at the given
+         * level of the stack.
+         * @return The seeds the player to move gains from the stores.
+         */
+        private int solve(int level) {
+            Position position = stack.get(level);
+            int player = position.getTurn();
+            int seeds = position.side(1) + position.side(2);
+            int index = (int) database.index(position, seeds);
+            if (values[index] != UNKNOWN)
+                return values[index];
+
+            int best;
+            if (position.side(1) == 0 || position.side(2) == 0) {
+                // the game is over and each side keeps its own seeds
+                best = position.side(player) - position.side(3 - player);
+            } else {
+                best = -Search.INFINITY;
+                Position child = level(level + 1);
+                for (int legal = position.legalMoves(); legal != 0; legal &= legal - 1) {
+                    int move = Integer.numberOfTrailingZeros(legal);
+                    child.copyFrom(position);
+                    int turn = child.sow(move);
+                    int value = child.score(player) - position.score(player);
+                    if (turn == player)
+                        value += solve(level + 1);
+                    else if (turn != 0)
+                        value -= solve(level + 1);
+                    if (value > best)
+                        best = value;
+                }
+            }
+            values[index] = (byte) best;
+            return best;
+        }
+
+        private Position level(int level) {
+            while (stack.size() <= level)
+                stack.add(new Position());
+            return stack.get(level);
+        }
+    }
+
+    public static void main(String[] argv) throws IOException {
+        if (argv.length != 2) {
+            System.out.println("usage: java algorithm.EndgameDatabase <maxSeeds> <file>");
+            System.exit(1);
+        }
+        int maxSeeds = Integer.parseInt(argv[0]);
+        long start = System.nanoTime();
+        EndgameDatabase database = build(maxSeeds);
+        database.write(new File(argv[1]));
+        System.out.printf("%d positions with up to %d seeds in %d ms%n", database.size(),
+                maxSeeds, (System.nanoTime() - start) / 1000000);
+    }
+}
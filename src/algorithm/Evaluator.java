@@ -0,0 +1,21 @@
+package algorithm;
+
+/**
+ * This interface represents an evaluation function of the kalah game. The
+ * search calls it on positions at the end of its depth to estimate how
+ * good the position is for a player.
+ */
+public interface Evaluator {
+
+    /**
+     * This method estimates the value of a position.
+     * @param position The position to evaluate.
+     * @param player An integer, either 1 or 2 that represents the player
+     * the score is calculated for.
+     * @return An integer that represents the value of the position for the
+     * player. Positive values favour the player, negative values favour
+     * the opponent. It must lie strictly between -Search.WIN and
+     * Search.WIN, the scores of proven results.
+     */
+    int evaluate(Position position, int player);
+}
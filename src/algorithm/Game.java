@@ -1,7 +1,5 @@
 package algorithm;
 
-import org.junit.internal.JUnitSystem;
-
 /**
  * This class represents a Game of Kalah. It's responsibilities are control game flow and updating GUI elements as necessary.
  */
@@ -20,27 +18,43 @@ public class Game {
 	 */
 	private int gameID;
 	/**
-	 * An object of type board that represents the game's board.
+	 * An object of type position that represents the game's board.
 	 */
-	private int[] board;
+	private Position position;
+
+    /**
+     * An array of integers that is handed to the players on each move.
+     */
+    private int[] board;
 
     private int turn;
 
+    /**
+     * The time budget of each player's moves in milliseconds, or 0 to
+     * search to the player's depth.
+     */
+    private long[] budgets;
+
     public Game(Player pl1, Player pl2) {
+        // create a  board with 3 seeds in each store
+        this(pl1, pl2, new Position());
+    }
+
+    /**
+     * This constructor creates a game that starts from the given position.
+     * @param pl1 The player that represents player 1.
+     * @param pl2 The player that represents player 2.
+     * @param start The position to start from. It is copied.
+     */
+    public Game(Player pl1, Player pl2, Position start) {
         this.pl1 = pl1;
         this.pl2 = pl2;
 
-        this.board = new int[14];
-
-        // create a  board with specified number of seeds
-        for (int i = 0; i < 14 ; i++) {
-            if (i == 6 || i == 13)
-                board[i] = 0;
-            else
-                board[i] = 3;
-        }
+        this.board = new int[start.getPieces()];
+        this.position = new Position(start);
+        this.budgets = new long[3];
 
-        this.turn = 1;
+        this.turn = start.getTurn();
     }
 
     /**
@@ -51,10 +65,12 @@ public class Game {
 	 */
 	public boolean update() {
         int move;
-        if (turn == 1)
-            move = pl1.makeMove(board);
+        position.copyTo(board);
+        Player pl = turn == 1 ? pl1 : pl2;
+        if (budgets[turn] > 0)
+            move = pl.makePlay(board, budgets[turn]);
         else
-            move = pl2.makeMove(board);
+            move = pl.makePlay(board);
 
         turn = move(move, turn);
 
@@ -62,130 +78,68 @@ public class Game {
     }
 
     /**
-     * This method is responsible for making a move on the board. Before the move is executed within the method validation methods are
-     * called on the input. If input is invalid then the move is not executed and the player is requested to move again. Otherwise the
-     * seeds are transferred from the source to the adjacent stores by
-     * method call transfer(). transfer returns the id of the last piece
-     * which a seed was transferred to. The piece is checked to see if it
-     * meets any special conditions.
+     * This method is responsible for making a move on the board. The
+     * seeds are transferred from the source to the adjacent stores and the
+     * last piece is checked to see if it meets any special conditions. See
+     * {@link Position#sow(int)}.
      * @param store A integer from 1 to 6 that represents the store a player
      * selected to transfer seeds from.
      * @param pid An integer, either 1 or 2 that represents the id of the
      * player who is making the move.
-     * @return An integer that represent the player whose turn is next.
+     * @return An integer that represent the player whose turn is next, or 0
+     * if the game is over.
      */
     public int move(int store, int pid) {
         // adjust the store to follow boards indexes
         store -= 1;
-        // if player 2 adjust store
-        if (pid == 2)
-            store = across(store);
-
-        int last = transfer(store);
-
-        // if the last piece is not a house
-        if (last != 6 && last != 13) {
-            if (special(last)) {
-                steal(last);
-            }
-            // switch turns
-            if (turn == 1)
-                turn = 2;
-            else
-                turn = 1;
-        }
+
+        position.setTurn(pid);
+        turn = position.sow(store);
 
         return turn;
     }
 
-
     /**
-     * This method is responsible for transferring all the seeds from a
-     * store to the board adjacent to it.
-     * @param store An integer representing the store that will be transferring
-     * the seeds.
-     * @return An integer that represents the last store that a seed was transferred to.
+     * This method plays the game until it is over.
+     * @return An integer that represents player 1's lead in seeds at the
+     * end of the game.
      */
-    public int transfer(int store) {
-        int dest = store + 1;
-        int seeds = board[store];
-        for (int i = 1; i <= seeds; i++) {
-            // if the dest if the opponents house -> skip
-            if (dest == 6 && store < 6 || dest == 13 && store > 6)
-                dest++;
-            // if the dest is passed index range -> reset
-            if (dest > 13)
-                dest = 0;
-
-            // execute transfer
-            board[store] -= 1;
-            board[dest] += 1;
-
-            // if not last seed increase dest
-            if (i < seeds)
-                dest++;
+    public int play() {
+        while (turn != 0 && update()) {
         }
-        return dest;
+        return position.score(1);
     }
 
     /**
-     * This method is called to check if the last store to receive a seed
-     * had 0 seeds in it prior to the transfer, is owned by the player who
-     * made the move and the piece adjacent to it was not empty.
-     * @param piece An integer that represents the piece of the board.
-     * @return true if conditions are met, otherwise false
+     * @param pid An integer, either 1 or 2 that represents a player.
+     * @param millis A long that represents the time budget of the player's
+     * moves in milliseconds, or 0 to search to the player's depth.
      */
-    public boolean special(int piece) {
-        // check that the piece was empty
-        if (board[piece] != 1)
-            return false;
-        // check the the piece is owned by the player
-        if ((piece < 6 && turn == 2) || (piece > 6 && turn == 1))
-            return false;
-        // check that the piece across from it is not empty
-        if (board[across(piece)] == 0)
-            return false;
-
-        return true;
+    public void setBudget(int pid, long millis) {
+        budgets[pid] = millis;
     }
 
-    /**
-     * This method is responsible for executing a steal operation in the game
-     * of Kalah. It will empty the store that is specified and the store opposite to it and transfer the seeds to the home of the player who made the move.
-     * @param store An integer that represents the store that was the last to
-     * receive a seed on a transfer.
-     */
-    public void steal(int store) {
-        // get total num seeds for transfer
-        int seeds = board[store] + board[across(store)];
-
-        // add seeds to the home of the player
-        if (store < 6)
-            board[6] += seeds;
-        else
-            board[13] += seeds;
-
-        // zero the stores involved
-        board[store] = 0;
-        board[across(store)] = 0;
+    public int getTurn() {
+        return turn;
     }
 
     /**
-     * This method calculates the piece across from the one selected.
-     * across = piece + ((6 - piece) * 2)
-     * @param piece A integer that represents the a piece of the board
-     * @return An integer that represent the piece across from the one provided.
+     * @return The position of the game's board.
      */
-    public int across(int piece) {
-        return piece + ((6 - piece) * 2);
+    public Position getPosition() {
+        return position;
     }
 
     public void printBoard() {
-        System.out.printf("+------+------+------+------+------+------+------+------+\n");
-        System.out.printf("|      |  %02d  |  %02d  |  %02d  |  %02d  |  %02d  |  %02d  |      |\n", board[12], board[11], board[10], board[9], board[8], board[7]);
-        System.out.printf("|  %02d  |------+------+------+------+------+------|  %02d  |\n", board[13], board[6]);
-        System.out.printf("|      |  %02d  |  %02d  |  %02d  |  %02d  |  %02d  |  %02d  |      |\n", board[0], board[1], board[2], board[3], board[4], board[5]);
-        System.out.printf("+------+------+------+------+------+------+------+------+\n");
+        System.out.print(formatBoard());
+    }
+
+    /**
+     * @return A string that holds the lines of the game's board; see
+     * {@link Position#format()}.
+     */
+    public String formatBoard() {
+        return position.format();
     }
 
 }
\ No newline at end of file
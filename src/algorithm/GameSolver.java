@@ -0,0 +1,441 @@
+package algorithm;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * This class solves a game of kalah exactly: it finds how many seeds the
+ * player to move gains over the opponent with perfect play by both sides.
+ * Like the {@link EndgameDatabase} it works on the seeds left in the
+ * stores alone, so positions that differ only in their houses are solved
+ * once.
+ * <p>
+ * The solver runs MTD(f): a sequence of alpha-beta searches with a null
+ * window that close in on the value from both sides. Every bound proven
+ * along the way is kept in a {@link SolutionTable}, which is saved to disk
+ * with the state of the MTD(f) loop at regular intervals, so a solver that
+ * is stopped picks up from its last checkpoint when run again with the
+ * same files. Positions with few seeds left are read from an
+ * endgame database instead of being searched.
+ * <p>
+ * Once the start position is solved the exact entries of the table are
+ * written out as a {@link SolutionDatabase}, and every position the engine
+ * can reach while playing perfectly is solved exactly first so the
+ * database holds them.
+ * <p>
+ * Usage: {@code java algorithm.GameSolver <dir> [seeds] [slots] [endgame]},
+ * where endgame is either an endgame database file or the number of seeds
+ * of one to build in memory.
+ */
+public class GameSolver {
+
+    /**
+     * The default number of seeds of the endgame database built in memory.
+     */
+    public static final int DEFAULT_ENDGAME_SEEDS = 16;
+    /**
+     * The default number of slots of a new solution table.
+     */
+    public static final long DEFAULT_SLOTS = 1L << 28;
+
+    private static final String TABLE = "solution.table";
+    private static final String PROGRESS = "solution.progress";
+    private static final String DATABASE = "solution.db";
+
+    private final Position start;
+    private final SolutionTable table;
+    private final EndgameDatabase endgame;
+    private final PositionIndex index;
+    private final File progress;
+
+    /**
+     * The children of the position at every level of the recursion, with
+     * their gains, next turns and the order they are searched in.
+     */
+    private Position[][] children;
+    private int[][] gains;
+    private int[][] turns;
+    private int[][] order;
+    /**
+     * The rank of each move while the children of a level are ordered.
+     */
+    private final int[] priority = new int[Position.STORES];
+
+    private long nodes;
+    private long elapsed;
+    private long interval;
+    private long lastCheckpoint;
+    private int lower;
+    private int upper;
+    private int guess;
+
+    /**
+     * @param start The position to solve, which must not be over.
+     * @param table The table the proven bounds are kept in.
+     * @param endgame The endgame database probed for positions with few
+     * seeds left, or null.
+     * @param progress The file the progress is written to, or null to
+     * never write it.
+     */
+    public GameSolver(Position start, SolutionTable table, EndgameDatabase endgame, File progress) {
+        if (start.getTurn() == 0)
+            throw new IllegalArgumentException("the game is over: " + start);
+        this.start = new Position(start);
+        this.table = table;
+        this.endgame = endgame;
+        this.progress = progress;
+        int seeds = start.side(1) + start.side(2);
+        this.index = new PositionIndex(seeds);
+        this.children = new Position[0][];
+        this.gains = new int[0][];
+        this.turns = new int[0][];
+        this.order = new int[0][];
+        this.interval = 60000;
+        this.lower = -seeds;
+        this.upper = seeds;
+    }
+
+    /**
+     * This method is responsible for solving the start position. The
+     * progress file is read first if it exists, so a stopped solver goes
+     * on from the last checkpoint.
+     * @return The seeds the player to move gains over the opponent from
+     * the stores until the game is over.
+     * @throws IOException if the progress file cannot be read or written.
+     */
+    public int solve() throws IOException {
+        resume();
+        lastCheckpoint = System.nanoTime();
+        while (lower < upper) {
+            int beta = guess == lower ? guess + 1 : guess;
+            guess = search(start, 0, beta - 1, beta);
+            if (guess < beta)
+                upper = guess;
+            else
+                lower = guess;
+            if (Trace.ENABLED && Trace.isOn(Trace.INFO))
+                Trace.log(Trace.INFO, "solver bounds " + lower + " " + upper + " nodes " + nodes);
+            checkpoint();
+        }
+        return lower;
+    }
+
+    /**
+     * This method is responsible for solving every position the player to
+     * move in the start position reaches when playing perfectly, against
+     * any reply of the opponent, and the same for the opponent. After it
+     * the table holds an exact value for each of them and for all of their
+     * children, which is enough to pick a perfect move.
+     * @param plies An integer that represents the most moves from the
+     * start followed.
+     * @return The number of positions visited.
+     * @throws IOException if the progress file cannot be written.
+     */
+    public long solveLines(int plies) throws IOException {
+        lastCheckpoint = System.nanoTime();
+        Set<Long> seen = new HashSet<Long>();
+        lines(start, 0, plies, 1, seen);
+        lines(start, 0, plies, 2, seen);
+        checkpoint();
+        return seen.size();
+    }
+
+    /**
+     * This method solves the position and its children exactly and follows
+     * every move of the opponent of the given player, and the perfect moves
+     * of the player.
+     */
+    private void lines(Position position, int ply, int plies, int player, Set<Long> seen) {
+        // a position and its mirror share an index, so also tell apart
+        // which side of it plays perfectly
+        int mover = position.getTurn();
+        long key = index.index(position) * 2 + (mover == player ? 1 : 0);
+        if (!seen.add(key) || ply >= plies)
+            return;
+        // the engine reads these positions from its endgame database
+        if (endgame != null && endgame.probe(position) != EndgameDatabase.NO_VALUE)
+            return;
+        int value = exact(position, ply);
+        int count = expand(position, ply);
+        Position[] next = children[ply];
+        for (int i = 0; i < count; i++) {
+            Position child = next[order[ply][i]];
+            int turn = turns[ply][order[ply][i]];
+            if (turn == 0)
+                continue;
+            int gain = gains[ply][order[ply][i]];
+            int childValue = exact(child, ply + 1);
+            if (mover == player && gain + (turn == mover ? childValue : -childValue) != value)
+                continue;
+            lines(child, ply + 1, plies, player, seen);
+        }
+    }
+
+    /**
+     * This method solves a position exactly with a full window search.
+     */
+    private int exact(Position position, int ply) {
+        if (endgame != null) {
+            int value = endgame.probe(position);
+            if (value != EndgameDatabase.NO_VALUE)
+                return value;
+        }
+        long entry = table.probe(index.index(position));
+        if (entry != 0 && SolutionTable.lower(entry) == SolutionTable.upper(entry))
+            return SolutionTable.lower(entry);
+        int seeds = position.side(1) + position.side(2);
+        return search(position, ply, -seeds - 1, seeds + 1);
+    }
+
+    /**
+     * This method is responsible for searching a position with alpha-beta
+     * and storing the bound it proves in the table.
+     * @return The seeds the player to move gains from the stores, exact if
+     * it falls inside the window, otherwise a bound on the side of the
+     * window it falls on.
+     */
+    private int search(Position position, int ply, int alpha, int beta) {
+        nodes++;
+        if ((nodes & ((1 << 22) - 1)) == 0)
+            poll();
+
+        if (endgame != null) {
+            int value = endgame.probe(position);
+            if (value != EndgameDatabase.NO_VALUE)
+                return value;
+        }
+
+        int seeds = position.side(1) + position.side(2);
+        long key = index.index(position, seeds);
+        int low = -seeds;
+        int high = seeds;
+        long entry = table.probe(key);
+        if (entry != 0) {
+            low = Math.max(low, SolutionTable.lower(entry));
+            high = Math.min(high, SolutionTable.upper(entry));
+        }
+        if (low >= beta)
+            return low;
+        if (high <= alpha || low == high)
+            return high;
+        alpha = Math.max(alpha, low);
+        beta = Math.min(beta, high);
+
+        int count = expand(position, ply);
+        int player = position.getTurn();
+        int alphaOrig = alpha;
+        int best = -Search.INFINITY;
+        for (int i = 0; i < count; i++) {
+            int move = order[ply][i];
+            int gain = gains[ply][move];
+            int turn = turns[ply][move];
+            int value;
+            if (turn == 0)
+                value = gain;
+            else if (turn == player)
+                value = gain + search(children[ply][move], ply + 1, alpha - gain, beta - gain);
+            else
+                value = gain - search(children[ply][move], ply + 1, gain - beta, gain - alpha);
+            if (value > best)
+                best = value;
+            if (best > alpha)
+                alpha = best;
+            if (alpha >= beta)
+                break;
+        }
+
+        if (best <= alphaOrig)
+            table.store(key, low, best);
+        else if (best >= beta)
+            table.store(key, best, high);
+        else
+            table.store(key, best, best);
+        return best;
+    }
+
+    /**
+     * This method plays every legal move of a position into the children
+     * of its level and orders them: moves that earn another turn first,
+     * then by the seeds they gain.
+     * @return The number of legal moves.
+     */
+    private int expand(Position position, int ply) {
+        Position[] next = level(ply);
+        int player = position.getTurn();
+        int count = 0;
+        for (int legal = position.legalMoves(); legal != 0; legal &= legal - 1) {
+            int move = Integer.numberOfTrailingZeros(legal);
+            Position child = next[move];
+            child.copyFrom(position);
+            int turn = child.sow(move);
+            int gain = child.score(player) - position.score(player);
+            gains[ply][move] = gain;
+            turns[ply][move] = turn;
+
+            int rank = (turn == player ? 1000 : 0) + gain;
+            int i = count++;
+            while (i > 0 && priority[i - 1] < rank) {
+                priority[i] = priority[i - 1];
+                order[ply][i] = order[ply][i - 1];
+                i--;
+            }
+            priority[i] = rank;
+            order[ply][i] = move;
+        }
+        return count;
+    }
+
+    private Position[] level(int ply) {
+        if (ply >= children.length) {
+            int size = Math.max(ply + 1, children.length * 2);
+            Position[][] grown = new Position[size][];
+            System.arraycopy(children, 0, grown, 0, children.length);
+            for (int i = children.length; i < size; i++) {
+                grown[i] = new Position[Position.STORES];
+                for (int j = 0; j < Position.STORES; j++)
+                    grown[i][j] = new Position();
+            }
+            children = grown;
+            gains = grow(gains, size);
+            turns = grow(turns, size);
+            order = grow(order, size);
+        }
+        return children[ply];
+    }
+
+    private static int[][] grow(int[][] array, int size) {
+        int[][] grown = new int[size][];
+        System.arraycopy(array, 0, grown, 0, array.length);
+        for (int i = array.length; i < size; i++)
+            grown[i] = new int[Position.STORES];
+        return grown;
+    }
+
+    /**
+     * This method writes a checkpoint once the interval has passed.
+     */
+    private void poll() {
+        if (System.nanoTime() - lastCheckpoint < interval * 1000000L)
+            return;
+        try {
+            checkpoint();
+        } catch (IOException e) {
+            Trace.log(Trace.ERROR, "checkpoint failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * This method writes the table and the progress of the solver to
+     * disk, replacing the progress file only once the new one is complete.
+     * @throws IOException if the progress file cannot be written.
+     */
+    public void checkpoint() throws IOException {
+        long now = System.nanoTime();
+        elapsed += (now - lastCheckpoint) / 1000000;
+        lastCheckpoint = now;
+        table.save();
+        if (progress == null)
+            return;
+        Properties state = new Properties();
+        state.setProperty("lower", Integer.toString(lower));
+        state.setProperty("upper", Integer.toString(upper));
+        state.setProperty("guess", Integer.toString(guess));
+        state.setProperty("nodes", Long.toString(nodes));
+        state.setProperty("millis", Long.toString(elapsed));
+        state.setProperty("entries", Long.toString(table.size()));
+        state.setProperty("position", start.toString());
+        File temp = new File(progress.getPath() + ".tmp");
+        OutputStream out = new FileOutputStream(temp);
+        try {
+            state.store(out, "kalah solver progress");
+        } finally {
+            out.close();
+        }
+        if (!temp.renameTo(progress))
+            throw new IOException("cannot replace " + progress);
+        if (Trace.ENABLED && Trace.isOn(Trace.INFO))
+            Trace.log(Trace.INFO, "checkpoint " + state);
+    }
+
+    /**
+     * This method reads the progress file written by an earlier run, if
+     * it exists and belongs to the same start position.
+     */
+    private void resume() throws IOException {
+        if (progress == null || !progress.exists())
+            return;
+        Properties state = new Properties();
+        InputStream in = new FileInputStream(progress);
+        try {
+            state.load(in);
+        } finally {
+            in.close();
+        }
+        if (!start.toString().equals(state.getProperty("position")))
+            throw new IOException(progress + " belongs to " + state.getProperty("position"));
+        lower = Integer.parseInt(state.getProperty("lower"));
+        upper = Integer.parseInt(state.getProperty("upper"));
+        guess = Integer.parseInt(state.getProperty("guess"));
+        nodes = Long.parseLong(state.getProperty("nodes"));
+        elapsed = Long.parseLong(state.getProperty("millis"));
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return The time spent solving over every run, in milliseconds.
+     */
+    public long getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * @param millis A long that represents the time between checkpoints.
+     */
+    public void setCheckpointInterval(long millis) {
+        this.interval = millis;
+    }
+
+    public static void main(String[] argv) throws IOException {
+        if (argv.length < 1 || argv.length > 4) {
+            System.out.println("usage: java algorithm.GameSolver <dir> [seeds] [slots] [endgame]");
+            System.exit(1);
+        }
+        File dir = new File(argv[0]);
+        if (!dir.isDirectory() && !dir.mkdirs())
+            throw new IOException("cannot create " + dir);
+        int seeds = argv.length > 1 ? Integer.parseInt(argv[1]) : 3;
+        long slots = argv.length > 2 ? Long.parseLong(argv[2]) : DEFAULT_SLOTS;
+
+        EndgameDatabase endgame;
+        if (argv.length > 3 && new File(argv[3]).isFile())
+            endgame = EndgameDatabase.open(new File(argv[3]));
+        else
+            endgame = EndgameDatabase.build(argv.length > 3 ? Integer.parseInt(argv[3])
+                    : DEFAULT_ENDGAME_SEEDS);
+
+        SolutionTable table = new SolutionTable(new File(dir, TABLE), slots);
+        GameSolver solver = new GameSolver(new Position(seeds), table, endgame,
+                new File(dir, PROGRESS));
+        int value = solver.solve();
+        System.out.printf("value %d in %d nodes, %d ms%n", value, solver.getNodes(),
+                solver.getElapsed());
+
+        long lines = solver.solveLines(Integer.MAX_VALUE);
+        System.out.printf("%d positions on perfect lines, %d ms%n", lines, solver.getElapsed());
+
+        SolutionDatabase database = SolutionDatabase.build(table, seeds * 2 * Position.STORES);
+        database.write(new File(dir, DATABASE));
+        System.out.printf("%d solved positions written to %s%n", database.size(),
+                new File(dir, DATABASE));
+    }
+}
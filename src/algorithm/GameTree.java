@@ -0,0 +1,286 @@
+package algorithm;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class represents a game tree held in an arena of parallel primitive
+ * arrays indexed by node, for tree searches and analysis. The root is
+ * always node 0 and the children of a node are a contiguous range of
+ * nodes, so a node is found from its parent by an offset and costs 19
+ * bytes: the first child, the number of children, the move into it, the
+ * player to move, a visit count and a value.
+ * <p>
+ * The arrays are allocated once. Nodes are taken from their end with an
+ * atomic add, a node is claimed for expansion with a compare-and-set and
+ * the counts are updated with atomic adds, so several threads can grow and
+ * update the tree without locks. Resetting the tree or keeping the subtree
+ * of a move as the new root moves data within the arrays and never
+ * allocates.
+ * <p>
+ * The tree is for the search of a single thread or a group of threads
+ * between calls to {@link #reset(int)} and {@link #reroot(int)}, which must
+ * not run alongside anything else.
+ */
+public class GameTree {
+
+    /**
+     * The node at the root of the tree.
+     */
+    public static final int ROOT = 0;
+    /**
+     * The first child of a node that was not expanded.
+     */
+    public static final int LEAF = -1;
+    /**
+     * The first child of a node that is being expanded by another thread.
+     */
+    public static final int EXPANDING = -2;
+
+    private final int capacity;
+    /**
+     * The first child of each node, LEAF or EXPANDING.
+     */
+    private final AtomicIntegerArray firstChild;
+    private final byte[] childCount;
+    /**
+     * The move that leads from the parent to each node.
+     */
+    private final byte[] moves;
+    /**
+     * The player to move in each node, or 0 if the game is over.
+     */
+    private final byte[] turns;
+    private final AtomicIntegerArray visits;
+    /**
+     * The sum of the values added to each node by the search.
+     */
+    private final AtomicLongArray values;
+    private final AtomicInteger size;
+
+    /**
+     * A bit for each node kept when the root moves, and the number of kept
+     * nodes before each word of bits.
+     */
+    private final long[] kept;
+    private final int[] keptBefore;
+
+    /**
+     * @param capacity An integer that represents the most nodes the tree
+     * can hold.
+     */
+    public GameTree(int capacity) {
+        if (capacity < 1 + Position.MAX_STORES)
+            throw new IllegalArgumentException("capacity is too small: " + capacity);
+        this.capacity = capacity;
+        this.firstChild = new AtomicIntegerArray(capacity);
+        this.childCount = new byte[capacity];
+        this.moves = new byte[capacity];
+        this.turns = new byte[capacity];
+        this.visits = new AtomicIntegerArray(capacity);
+        this.values = new AtomicLongArray(capacity);
+        this.size = new AtomicInteger();
+        this.kept = new long[(capacity + 63) >>> 6];
+        this.keptBefore = new int[kept.length];
+        reset(0);
+    }
+
+    /**
+     * This method empties the tree down to a root with no statistics.
+     * @param turn An integer, either 1 or 2 that represents the player to
+     * move at the root, or 0 if the game is over.
+     */
+    public void reset(int turn) {
+        size.set(1);
+        init(ROOT, 0, turn);
+    }
+
+    private void init(int node, int move, int turn) {
+        moves[node] = (byte) move;
+        turns[node] = (byte) turn;
+        childCount[node] = 0;
+        firstChild.lazySet(node, LEAF);
+        visits.lazySet(node, 0);
+        values.lazySet(node, 0);
+    }
+
+    /**
+     * This method adds a child for every legal move of a position to its
+     * node. Only one thread expands a node; the others see it as a leaf
+     * until its children are published.
+     * @param node An integer that represents a leaf of the tree.
+     * @param position The position of the node. It is left unchanged.
+     * @return The first child of the node, or -1 if another thread is
+     * expanding it, it has no moves or the tree is full.
+     */
+    public int expand(int node, Position position) {
+        int legal = position.legalMoves();
+        int count = Integer.bitCount(legal);
+        if (count == 0 || size.get() + count > capacity
+                || !firstChild.compareAndSet(node, LEAF, EXPANDING))
+            return -1;
+        int first = size.getAndAdd(count);
+        if (first + count > capacity) {
+            firstChild.set(node, LEAF);
+            return -1;
+        }
+        for (int child = first; legal != 0; legal &= legal - 1, child++) {
+            int move = Integer.numberOfTrailingZeros(legal);
+            int undo = position.make(move);
+            init(child, move, position.getTurn());
+            position.unmake(undo);
+        }
+        childCount[node] = (byte) count;
+        // publishing the first child makes the children visible
+        firstChild.set(node, first);
+        return first;
+    }
+
+    /**
+     * This method follows a move from a node.
+     * @return The child reached by the move, or -1 if the node was not
+     * expanded or the move is not legal.
+     */
+    public int child(int node, int move) {
+        int first = firstChild.get(node);
+        for (int child = first; child >= 0 && child < first + childCount[node]; child++) {
+            if (moves[child] == move)
+                return child;
+        }
+        return -1;
+    }
+
+    /**
+     * This method looks for the node of a position below a node, for
+     * example the position reached by the moves of both players since the
+     * root was searched. Houses never lose seeds, so branches where a house
+     * already holds more than in the position are skipped.
+     * @param node An integer that represents the node to search below.
+     * @param board The position of the node. It is left unchanged.
+     * @param target The position to look for.
+     * @param plies An integer that represents the most moves below the
+     * node to look.
+     * @return The node of the position, or -1 if it is not in the tree.
+     */
+    public int find(int node, Position board, Position target, int plies) {
+        if (board.equals(target))
+            return node;
+        int first = firstChild.get(node);
+        if (plies == 0 || first < 0 || board.house(1) > target.house(1)
+                || board.house(2) > target.house(2))
+            return -1;
+        for (int child = first; child < first + childCount[node]; child++) {
+            int undo = board.make(moves[child]);
+            int found = find(child, board, target, plies - 1);
+            board.unmake(undo);
+            if (found >= 0)
+                return found;
+        }
+        return -1;
+    }
+
+    /**
+     * This method makes a node the root, keeping its subtree with its
+     * statistics and dropping the rest of the tree. Children are always
+     * taken after their parent, so the subtree is marked in one pass over
+     * the arrays and then slid to the front in its existing order, which
+     * keeps every range of children together.
+     * @param node An integer that represents the new root.
+     */
+    public void reroot(int node) {
+        if (node == ROOT)
+            return;
+        int end = size();
+        Arrays.fill(kept, 0, ((end + 63) >>> 6), 0L);
+        kept[node >>> 6] |= 1L << node;
+        for (int i = node; i < end; i++) {
+            int first = firstChild.get(i);
+            if ((kept[i >>> 6] & (1L << i)) == 0 || first < 0)
+                continue;
+            for (int child = first; child < first + childCount[i]; child++)
+                kept[child >>> 6] |= 1L << child;
+        }
+        int count = 0;
+        for (int word = 0; word < ((end + 63) >>> 6); word++) {
+            keptBefore[word] = count;
+            count += Long.bitCount(kept[word]);
+        }
+
+        // a node only moves down, onto a node that was dropped or moved
+        for (int i = node; i < end; i++) {
+            if ((kept[i >>> 6] & (1L << i)) == 0)
+                continue;
+            int to = index(i);
+            int first = firstChild.get(i);
+            firstChild.set(to, first < 0 ? LEAF : index(first));
+            childCount[to] = childCount[i];
+            moves[to] = moves[i];
+            turns[to] = turns[i];
+            visits.set(to, visits.get(i));
+            values.set(to, values.get(i));
+        }
+        size.set(count);
+    }
+
+    /**
+     * @return The index of a kept node once the kept nodes are packed.
+     */
+    private int index(int node) {
+        return keptBefore[node >>> 6] + Long.bitCount(kept[node >>> 6] & ((1L << node) - 1));
+    }
+
+    public int getFirstChild(int node) {
+        return firstChild.get(node);
+    }
+
+    public int getChildCount(int node) {
+        return childCount[node];
+    }
+
+    /**
+     * @return The move that leads from the parent to the node.
+     */
+    public int getMove(int node) {
+        return moves[node];
+    }
+
+    /**
+     * @return The player to move in the node, or 0 if the game is over.
+     */
+    public int getTurn(int node) {
+        return turns[node];
+    }
+
+    public boolean isExpanded(int node) {
+        return firstChild.get(node) >= 0;
+    }
+
+    public int getVisits(int node) {
+        return visits.get(node);
+    }
+
+    public void addVisit(int node) {
+        visits.getAndIncrement(node);
+    }
+
+    public long getValue(int node) {
+        return values.get(node);
+    }
+
+    public void addValue(int node, long value) {
+        values.getAndAdd(node, value);
+    }
+
+    /**
+     * @return The number of nodes in the tree.
+     */
+    public int size() {
+        return Math.min(size.get(), capacity);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -1,18 +0,0 @@
-package algorithm;
-
-import java.util.*;
-
-/**
- * This class represents a piece of type House.
- */
-public class House extends Piece {
-
-	/**
-	 * 
-	 * @param seeds
-	 */
-	public House(int id, int owner, Stack<Seed> seeds) {
-        super(id, owner, seeds);
-	}
-
-}
\ No newline at end of file
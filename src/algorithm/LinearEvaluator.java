@@ -0,0 +1,212 @@
+package algorithm;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+/**
+ * This class represents an evaluation that adds up weighted features of a
+ * position, each counted from the point of view of the evaluated player:
+ * <ul>
+ * <li>house: the lead in seeds between the houses,</li>
+ * <li>seeds and opponentSeeds: the seeds left on each side,</li>
+ * <li>captures and opponentCaptures: the most seeds one move of each
+ * player can capture,</li>
+ * <li>extraTurns and opponentExtraTurns: the moves of each player that
+ * end in its own house,</li>
+ * <li>tempo: 1 if the player is to move, otherwise -1.</li>
+ * </ul>
+ * The weights are integers in hundredths of a seed, so with only the house
+ * weighted at 100 the evaluation is the house difference in hundredths.
+ * The sum is clamped inside the scores the search gives proven results,
+ * so no estimate outranks a forced win or falls below a forced loss.
+ * The features are computed straight from the position without allocating,
+ * and the weights are never changed after construction, so one evaluator
+ * can be shared by searches on many threads.
+ * <p>
+ * Weight files are properties files that map feature names to weights.
+ * Features missing from a file have a weight of 0.
+ */
+public class LinearEvaluator implements Evaluator {
+
+    public static final int HOUSE = 0;
+    public static final int SEEDS = 1;
+    public static final int OPPONENT_SEEDS = 2;
+    public static final int CAPTURES = 3;
+    public static final int OPPONENT_CAPTURES = 4;
+    public static final int EXTRA_TURNS = 5;
+    public static final int OPPONENT_EXTRA_TURNS = 6;
+    public static final int TEMPO = 7;
+
+    /**
+     * The number of features.
+     */
+    public static final int FEATURES = 8;
+
+    /**
+     * The names of the features in weight files, by feature.
+     */
+    public static final String[] NAMES = { "house", "seeds", "opponentSeeds", "captures",
+            "opponentCaptures", "extraTurns", "opponentExtraTurns", "tempo" };
+
+    /**
+     * The weights in hundredths of a seed that give the house difference.
+     */
+    public static final int SCALE = 100;
+
+    private final int[] weights;
+
+    /**
+     * This constructor creates an evaluator with the default weights,
+     * which score the house difference alone.
+     */
+    public LinearEvaluator() {
+        this(defaultWeights());
+    }
+
+    /**
+     * @param weights An array with the weight of each feature in hundredths
+     * of a seed. It is copied.
+     */
+    public LinearEvaluator(int[] weights) {
+        if (weights.length != FEATURES)
+            throw new IllegalArgumentException("expected " + FEATURES + " weights: "
+                    + weights.length);
+        this.weights = weights.clone();
+    }
+
+    /**
+     * This method reads an evaluator from a weight file.
+     * @param file The properties file of weights.
+     * @return The evaluator with the weights of the file.
+     * @throws IOException if the file cannot be read or holds an unknown
+     * feature.
+     */
+    public static LinearEvaluator load(File file) throws IOException {
+        Properties properties = new Properties();
+        InputStream in = new FileInputStream(file);
+        try {
+            properties.load(in);
+        } finally {
+            in.close();
+        }
+        int[] weights = new int[FEATURES];
+        for (String name : properties.stringPropertyNames()) {
+            int feature = feature(name);
+            if (feature < 0)
+                throw new IOException(file + " has an unknown feature " + name);
+            try {
+                weights[feature] = Integer.parseInt(properties.getProperty(name).trim());
+            } catch (NumberFormatException e) {
+                throw new IOException(file + " has an invalid weight for " + name);
+            }
+        }
+        return new LinearEvaluator(weights);
+    }
+
+    /**
+     * This method writes the weights to a file that {@link #load(File)}
+     * reads back.
+     * @param file The file to write.
+     * @param comment A line written at the top of the file, or null.
+     * @throws IOException if the file cannot be written.
+     */
+    public void save(File file, String comment) throws IOException {
+        Properties properties = new Properties();
+        for (int i = 0; i < FEATURES; i++)
+            properties.setProperty(NAMES[i], Integer.toString(weights[i]));
+        OutputStream out = new FileOutputStream(file);
+        try {
+            properties.store(out, comment);
+        } finally {
+            out.close();
+        }
+    }
+
+    public int evaluate(Position position, int player) {
+        int opponent = 3 - player;
+        int score = weights[HOUSE] * position.score(player)
+                + weights[SEEDS] * position.side(player)
+                + weights[OPPONENT_SEEDS] * position.side(opponent)
+                + weights[TEMPO] * (position.getTurn() == player ? 1 : -1);
+        if (weights[CAPTURES] != 0 || weights[EXTRA_TURNS] != 0)
+            score += weights[CAPTURES] * capture(position, player)
+                    + weights[EXTRA_TURNS] * extraTurns(position, player);
+        if (weights[OPPONENT_CAPTURES] != 0 || weights[OPPONENT_EXTRA_TURNS] != 0)
+            score += weights[OPPONENT_CAPTURES] * capture(position, opponent)
+                    + weights[OPPONENT_EXTRA_TURNS] * extraTurns(position, opponent);
+        return Math.max(-Search.WIN + 1, Math.min(Search.WIN - 1, score));
+    }
+
+    /**
+     * This method computes every feature of a position.
+     * @param position The position to examine.
+     * @param player An integer, either 1 or 2 that represents the player
+     * the features are counted for.
+     * @param features An array of at least FEATURES integers to be filled.
+     */
+    public static void features(Position position, int player, int[] features) {
+        int opponent = 3 - player;
+        features[HOUSE] = position.score(player);
+        features[SEEDS] = position.side(player);
+        features[OPPONENT_SEEDS] = position.side(opponent);
+        features[CAPTURES] = capture(position, player);
+        features[OPPONENT_CAPTURES] = capture(position, opponent);
+        features[EXTRA_TURNS] = extraTurns(position, player);
+        features[OPPONENT_EXTRA_TURNS] = extraTurns(position, opponent);
+        features[TEMPO] = position.getTurn() == player ? 1 : -1;
+    }
+
+    /**
+     * This method counts the moves of a player whose last seed lands in
+     * the players house.
+     */
+    static int extraTurns(Position position, int player) {
+        int count = 0;
+        for (int move = 0; move < position.getStores(); move++) {
+            if (position.isExtraTurn(move, player))
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * This method finds the most seeds a single move of a player captures,
+     * as estimated by {@link Position#capture(int, int)}.
+     */
+    static int capture(Position position, int player) {
+        int best = 0;
+        for (int move = 0; move < position.getStores(); move++)
+            best = Math.max(best, position.capture(move, player));
+        return best;
+    }
+
+    /**
+     * @param name The name of a feature in a weight file.
+     * @return The index of the feature, or -1 if there is none.
+     */
+    public static int feature(String name) {
+        for (int i = 0; i < FEATURES; i++) {
+            if (NAMES[i].equals(name))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * @return A copy of the weight of each feature.
+     */
+    public int[] getWeights() {
+        return weights.clone();
+    }
+
+    private static int[] defaultWeights() {
+        int[] weights = new int[FEATURES];
+        weights[HOUSE] = SCALE;
+        return weights;
+    }
+}
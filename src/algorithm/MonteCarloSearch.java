@@ -0,0 +1,525 @@
+package algorithm;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class represents a Monte Carlo tree search with the UCT selection
+ * rule. Each playout descends the tree from the root, always taking the
+ * child with the best upper confidence bound, expands the first position
+ * outside the tree, plays the game out with fast moves on a primitive
+ * board and credits the result to every node on the way back up. The move
+ * visited most from the root is played.
+ * <p>
+ * Playouts are random, or with heuristic playouts the player takes a move
+ * that earns another turn, then the largest capture, before falling back
+ * to a random move. A playout stops as soon as a house holds more than
+ * half of the seeds, since the game is then decided.
+ * <p>
+ * The tree is a {@link GameTree}, whose nodes live in preallocated
+ * primitive arrays, so a playout never allocates. Each node's value is
+ * the results of its playouts for the player who moved into it. When the
+ * next search starts from a position a few moves below the last root,
+ * that subtree becomes the new root and its statistics are kept.
+ * <p>
+ * With more than one thread every thread runs playouts on the same tree.
+ * A visit is counted on the way down and its result only on the way back
+ * up, so a playout in progress counts as a loss for the nodes on its path
+ * and steers the other threads elsewhere: a virtual loss. The counts are
+ * updated with atomic adds and the tree claims nodes for expansion with a
+ * compare-and-set, so the threads never lock.
+ */
+public class MonteCarloSearch {
+
+    /**
+     * The default number of playouts of a search without a time budget.
+     */
+    public static final int DEFAULT_PLAYOUTS = 20000;
+    /**
+     * The default number of nodes the tree can hold.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 20;
+    /**
+     * The default weight of the exploration term of the UCT rule.
+     */
+    public static final double DEFAULT_EXPLORATION = 1.0;
+    /**
+     * The most moves below the last root a new root is looked for.
+     */
+    private static final int REUSE_PLIES = 8;
+    /**
+     * The number of playouts a thread claims from the budget at a time,
+     * and between looks at the clock.
+     */
+    private static final int BATCH = 64;
+
+    /**
+     * The tree of the search. Its values are in half points: 2 for a win,
+     * 1 for a draw and 0 for a loss.
+     */
+    private final GameTree tree;
+
+    /**
+     * The position at the root of the tree and the board used to look for
+     * a reused subtree.
+     */
+    private final Position root;
+    private final Position board;
+    /**
+     * An integer that represents the total number of seeds in the game.
+     */
+    private int total;
+
+    /**
+     * The playouts of the threads. The first runs on the calling thread.
+     */
+    private Worker[] workers;
+    private ExecutorService pool;
+    private Future<?>[] futures;
+    /**
+     * The number of playouts claimed by the threads in the running search.
+     */
+    private final AtomicInteger claimed;
+
+    private int playouts;
+    private double exploration;
+    private boolean heuristic;
+    private boolean reuse;
+
+    private int bestMove;
+    private long elapsed;
+
+    public MonteCarloSearch() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity An integer that represents the most nodes the tree
+     * can hold. Once it is full, playouts start from its leaves.
+     */
+    public MonteCarloSearch(int capacity) {
+        this(capacity, 1);
+    }
+
+    /**
+     * @param capacity An integer that represents the most nodes the tree
+     * can hold. Once it is full, playouts start from its leaves.
+     * @param threads An integer that represents the total number of
+     * threads, including the calling thread.
+     */
+    public MonteCarloSearch(int capacity, int threads) {
+        this.tree = new GameTree(capacity);
+        this.root = new Position();
+        this.board = new Position();
+        this.claimed = new AtomicInteger();
+        setThreads(threads);
+        this.playouts = DEFAULT_PLAYOUTS;
+        this.exploration = DEFAULT_EXPLORATION;
+        this.heuristic = true;
+        this.reuse = true;
+        this.bestMove = -1;
+    }
+
+    /**
+     * This method runs the configured number of playouts from the position
+     * and returns the move visited most.
+     * @param position The position to search. It is not modified.
+     * @return An integer that represents the best store relative to the
+     * player to move, or -1 if the game is over.
+     */
+    public int search(Position position) {
+        return run(position, playouts, 0);
+    }
+
+    /**
+     * This method runs playouts from the position until the time budget
+     * expires and returns the move visited most.
+     * @param position The position to search. It is not modified.
+     * @param millis A long that represents the time budget in milliseconds.
+     * @return An integer that represents the best store relative to the
+     * player to move, or -1 if the game is over.
+     */
+    public int search(Position position, long millis) {
+        return run(position, Integer.MAX_VALUE, System.nanoTime() + millis * 1000000L);
+    }
+
+    private int run(Position position, final int budget, final long deadline) {
+        long began = System.nanoTime();
+        bestMove = -1;
+        for (Worker worker : workers) {
+            worker.played = 0;
+            worker.maxDepth = 0;
+        }
+        if (position.getTurn() != 0) {
+            prepare(position);
+            total = position.seeds();
+            claimed.set(0);
+            for (int i = 0; i < futures.length; i++) {
+                final Worker worker = workers[i + 1];
+                futures[i] = pool.submit(new Runnable() {
+                    public void run() {
+                        worker.run(budget, deadline);
+                    }
+                });
+            }
+            try {
+                workers[0].run(budget, deadline);
+            } finally {
+                waitForWorkers();
+            }
+
+            int first = tree.getFirstChild(GameTree.ROOT);
+            int best = -1;
+            for (int child = first; child < first + tree.getChildCount(GameTree.ROOT); child++) {
+                if (best < 0 || tree.getVisits(child) > tree.getVisits(best))
+                    best = child;
+            }
+            bestMove = tree.getMove(best);
+        }
+        elapsed = System.nanoTime() - began;
+        return bestMove;
+    }
+
+    private void waitForWorkers() {
+        for (Future<?> future : futures) {
+            try {
+                if (future != null)
+                    future.get();
+            } catch (Exception e) {
+                throw new IllegalStateException("playout thread failed", e);
+            }
+        }
+    }
+
+    /**
+     * This method sets the root of the tree to the position, keeping the
+     * subtree of the position if it is a few moves below the last root.
+     */
+    private void prepare(Position position) {
+        int node = -1;
+        if (reuse && tree.getVisits(GameTree.ROOT) > 0
+                && root.getPieces() == position.getPieces()) {
+            board.copyFrom(root);
+            node = tree.find(GameTree.ROOT, board, position, REUSE_PLIES);
+        }
+        if (node >= 0)
+            tree.reroot(node);
+        else
+            tree.reset(position.getTurn());
+        root.copyFrom(position);
+    }
+
+    /**
+     * This class represents the playouts of one thread, with its own board,
+     * path and random numbers.
+     */
+    private class Worker {
+
+        private final Position board;
+        /**
+         * The nodes from the root to the node of the playout in progress.
+         */
+        private int[] path;
+        private long random;
+        private long played;
+        private int maxDepth;
+
+        Worker(long seed) {
+            this.board = new Position();
+            this.path = new int[256];
+            setSeed(seed);
+        }
+
+        void setSeed(long seed) {
+            this.random = seed == 0 ? 1 : seed;
+        }
+
+        /**
+         * This method claims playouts from the budget and runs them until
+         * it is spent or the deadline passes.
+         */
+        void run(int budget, long deadline) {
+            while (true) {
+                int start = claimed.getAndAdd(BATCH);
+                if (start >= budget || start < 0)
+                    return;
+                // always play the first batch, then watch the clock
+                if (deadline != 0 && start > 0 && System.nanoTime() >= deadline)
+                    return;
+                int count = Math.min(BATCH, budget - start);
+                for (int i = 0; i < count; i++) {
+                    playout();
+                    played++;
+                }
+            }
+        }
+
+        /**
+         * This method runs one playout: it selects a path down the tree,
+         * expands its leaf, plays the game out and updates the path.
+         */
+        private void playout() {
+            GameTree tree = MonteCarloSearch.this.tree;
+            board.copyFrom(root);
+            int node = GameTree.ROOT;
+            int depth = 0;
+            path[0] = node;
+            tree.addVisit(node);
+            int first;
+            while ((first = tree.getFirstChild(node)) >= 0) {
+                node = select(node, first);
+                // count the visit now, as a loss until the result is known
+                tree.addVisit(node);
+                board.make(tree.getMove(node));
+                if (++depth == path.length)
+                    path = Arrays.copyOf(path, depth * 2);
+                path[depth] = node;
+            }
+            if (first == GameTree.LEAF && (first = tree.expand(node, board)) >= 0) {
+                node = first + nextInt(tree.getChildCount(node));
+                tree.addVisit(node);
+                board.make(tree.getMove(node));
+                if (++depth == path.length)
+                    path = Arrays.copyOf(path, depth * 2);
+                path[depth] = node;
+            }
+            if (depth > maxDepth)
+                maxDepth = depth;
+
+            int result = rollout();
+            for (int i = 1; i <= depth; i++) {
+                int points = tree.getTurn(path[i - 1]) == 1 ? result : 2 - result;
+                if (points != 0)
+                    tree.addValue(path[i], points);
+            }
+        }
+
+        /**
+         * This method picks the child of a node with the best upper
+         * confidence bound for the player to move. Children that were
+         * never visited are taken first.
+         */
+        private int select(int node, int first) {
+            int last = first + tree.getChildCount(node);
+            double log = Math.log(tree.getVisits(node));
+            int best = first;
+            double bestValue = -1;
+            for (int child = first; child < last; child++) {
+                int count = tree.getVisits(child);
+                if (count == 0)
+                    return child;
+                double value = tree.getValue(child) / (2.0 * count)
+                        + exploration * Math.sqrt(log / count);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = child;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * This method plays the game on the board out.
+         * @return The result for player 1 in half points: 2 for a win, 1
+         * for a draw and 0 for a loss.
+         */
+        private int rollout() {
+            while (board.getTurn() != 0) {
+                if (board.house(1) * 2 > total)
+                    return 2;
+                if (board.house(2) * 2 > total)
+                    return 0;
+                int legal = board.legalMoves();
+                int move = heuristic ? tactical(legal) : -1;
+                if (move < 0) {
+                    // take a random bit of the legal moves
+                    for (int skip = nextInt(Integer.bitCount(legal)); skip > 0; skip--)
+                        legal &= legal - 1;
+                    move = Integer.numberOfTrailingZeros(legal);
+                }
+                board.make(move);
+            }
+            int result = board.result(1);
+            return result > 0 ? 2 : result < 0 ? 0 : 1;
+        }
+
+        /**
+         * @return The move closest to the house that earns another turn,
+         * else the largest capture, or -1 if there is neither.
+         */
+        private int tactical(int legal) {
+            int player = board.getTurn();
+            int stores = board.getStores();
+            int best = -1;
+            int bestCapture = 0;
+            // player 2 sows its stores from the last one down to store 0
+            for (int sown = stores - 1; sown >= 0; sown--) {
+                int move = player == 2 ? stores - 1 - sown : sown;
+                if ((legal & (1 << move)) == 0)
+                    continue;
+                if (board.isExtraTurn(move, player))
+                    return move;
+                int capture = board.capture(move, player);
+                if (capture > bestCapture) {
+                    bestCapture = capture;
+                    best = move;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * @return A random integer from 0 to bound - 1, drawn with a
+         * xorshift generator.
+         */
+        private int nextInt(int bound) {
+            random ^= random << 13;
+            random ^= random >>> 7;
+            random ^= random << 17;
+            return (int) (((random >>> 32) * bound) >>> 32);
+        }
+    }
+
+    /**
+     * @return The statistics of the last search, with the playouts of all
+     * threads.
+     */
+    public SearchStats getStats() {
+        long played = 0;
+        int maxDepth = 0;
+        for (Worker worker : workers) {
+            played += worker.played;
+            maxDepth = Math.max(maxDepth, worker.maxDepth);
+        }
+        int score = 0;
+        int child = bestMove < 0 ? -1 : tree.child(GameTree.ROOT, bestMove);
+        if (child >= 0 && tree.getVisits(child) > 0)
+            score = Math.round(50f * tree.getValue(child) / tree.getVisits(child));
+        return new SearchStats(SearchStats.MONTE_CARLO, bestMove, score, maxDepth, played,
+                elapsed, 0, 0, 0, new int[0], new long[0], new long[0]);
+    }
+
+    /**
+     * @param move An integer that represents a store relative to the player
+     * to move at the root.
+     * @return The number of playouts through the move, or 0 if it is not
+     * a legal move of the root.
+     */
+    public int getVisits(int move) {
+        int child = tree.child(GameTree.ROOT, move);
+        return child < 0 ? 0 : tree.getVisits(child);
+    }
+
+    /**
+     * @return The number of playouts through the root, which includes
+     * those of a reused subtree.
+     */
+    public int getRootVisits() {
+        return tree.getVisits(GameTree.ROOT);
+    }
+
+    public GameTree getTree() {
+        return tree;
+    }
+
+    public int getThreads() {
+        return workers.length;
+    }
+
+    /**
+     * This method sets the number of threads that run playouts, replacing
+     * the threads of the search.
+     * @param threads An integer that represents the total number of
+     * threads, including the calling thread.
+     */
+    public void setThreads(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be at least 1: " + threads);
+        shutdown();
+        workers = new Worker[threads];
+        long seed = System.nanoTime();
+        for (int i = 0; i < threads; i++)
+            workers[i] = new Worker(seed + i);
+        futures = new Future<?>[threads - 1];
+        pool = threads == 1 ? null : Executors.newFixedThreadPool(threads - 1,
+                new ThreadFactory() {
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "kalah-mcts");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+
+    public int getPlayouts() {
+        return playouts;
+    }
+
+    /**
+     * @param playouts An integer that represents the number of playouts of
+     * a search without a time budget.
+     */
+    public void setPlayouts(int playouts) {
+        if (playouts < 1)
+            throw new IllegalArgumentException("playouts must be at least 1: " + playouts);
+        this.playouts = playouts;
+    }
+
+    public double getExploration() {
+        return exploration;
+    }
+
+    /**
+     * @param exploration A double that represents the weight of the
+     * exploration term of the UCT rule.
+     */
+    public void setExploration(double exploration) {
+        this.exploration = exploration;
+    }
+
+    public boolean isHeuristic() {
+        return heuristic;
+    }
+
+    /**
+     * @param heuristic True for playouts that prefer extra turns and
+     * captures, false for random playouts.
+     */
+    public void setHeuristic(boolean heuristic) {
+        this.heuristic = heuristic;
+    }
+
+    public boolean isReuse() {
+        return reuse;
+    }
+
+    /**
+     * @param reuse True to keep the subtree of a position found below the
+     * last root, false to start every search from an empty tree.
+     */
+    public void setReuse(boolean reuse) {
+        this.reuse = reuse;
+    }
+
+    /**
+     * @param seed A long that seeds the generators of the playouts, so a
+     * search on one thread can be repeated.
+     */
+    public void setSeed(long seed) {
+        for (int i = 0; i < workers.length; i++)
+            workers[i].setSeed(seed + i);
+    }
+
+    /**
+     * This method stops the playout threads. The search cannot be used
+     * with more than one thread until the threads are set again.
+     */
+    public void shutdown() {
+        if (pool != null)
+            pool.shutdownNow();
+    }
+}
@@ -0,0 +1,219 @@
+package algorithm;
+
+import java.util.Arrays;
+
+/**
+ * This class orders the moves of a position for an alpha-beta search, so
+ * the moves most likely to cause a cutoff are searched first. The order
+ * is:
+ * <ol>
+ * <li>the best move stored in the transposition table,</li>
+ * <li>moves that end in the players house and earn another turn, the
+ * store closest to the house first,</li>
+ * <li>captures, the largest first,</li>
+ * <li>the two killer moves of the ply: quiet moves that caused a cutoff in
+ * a sibling position,</li>
+ * <li>the remaining moves by their history: how often and how deep they
+ * caused a cutoff anywhere in the tree.</li>
+ * </ol>
+ * At the root only the table move is brought forward and the other moves
+ * keep their natural order, so equal moves are settled the same way as by
+ * a search without ordering.
+ * <p>
+ * The killers, the history and the ordered moves of every ply are kept in
+ * primitive arrays that grow with the depth of the search, so ordering a
+ * position never allocates.
+ */
+public class MoveOrder {
+
+    private static final int TABLE = 1 << 30;
+    private static final int EXTRA_TURN = 1 << 28;
+    private static final int CAPTURE = 1 << 26;
+    private static final int KILLER = 1 << 24;
+    /**
+     * The largest history value, kept below the killers.
+     */
+    private static final int MAX_HISTORY = KILLER - 1;
+
+    /**
+     * The two killer moves of each ply, or -1.
+     */
+    private int[][] killers;
+    /**
+     * The history of each move of each player, indexed by
+     * (player - 1) * MAX_STORES + move.
+     */
+    private final int[] history;
+    /**
+     * The ordered moves of each ply and their ranks.
+     */
+    private int[][] moves;
+    private int[][] ranks;
+    /**
+     * A bitmask of the moves of each ply that earn another turn or capture.
+     */
+    private int[] tactical;
+
+    public MoveOrder() {
+        this.history = new int[2 * Position.MAX_STORES];
+        this.killers = new int[0][];
+        this.moves = new int[0][];
+        this.ranks = new int[0][];
+        this.tactical = new int[0];
+        ensure(1);
+    }
+
+    /**
+     * This method orders the legal moves of a position.
+     * @param position The position to order the moves of.
+     * @param ply An integer that represents the distance from the root.
+     * @param tableMove An integer that represents the move stored in the
+     * transposition table, or -1.
+     * @return The number of legal moves, which are found at the start of
+     * {@link #moves(int)}.
+     */
+    public int order(Position position, int ply, int tableMove) {
+        int player = position.getTurn();
+        int[] list = moves[ply];
+        int[] rank = ranks[ply];
+        int[] killer = killers[ply];
+        int mask = 0;
+        int count = 0;
+        int stores = position.getStores();
+        for (int move = 0; move < stores; move++) {
+            int seeds = position.get(position.pieceOf(move, player));
+            if (seeds == 0)
+                continue;
+
+            int value;
+            int last = position.landing(move, seeds, player);
+            int capture;
+            if (move == tableMove) {
+                value = TABLE;
+            } else if (ply == 0) {
+                value = 0;
+            } else if (last == stores) {
+                // the store closest to the house is the last one sown
+                value = EXTRA_TURN + (player == 2 ? stores - 1 - move : move);
+                mask |= 1 << move;
+            } else if (last < stores
+                    && (capture = position.capture(move, player)) > 0) {
+                value = CAPTURE + capture;
+                mask |= 1 << move;
+            } else if (move == killer[0]) {
+                value = KILLER + 1;
+            } else if (move == killer[1]) {
+                value = KILLER;
+            } else {
+                value = history[(player - 1) * Position.MAX_STORES + move];
+            }
+
+            // insert the move in order of rank
+            int i = count++;
+            while (i > 0 && rank[i - 1] < value) {
+                rank[i] = rank[i - 1];
+                list[i] = list[i - 1];
+                i--;
+            }
+            rank[i] = value;
+            list[i] = move;
+        }
+        tactical[ply] = mask;
+        return count;
+    }
+
+    /**
+     * @param ply An integer that represents the distance from the root.
+     * @return The moves of the ply in the order of the last call to
+     * {@link #order(Position, int, int)}.
+     */
+    public int[] moves(int ply) {
+        return moves[ply];
+    }
+
+    /**
+     * This method records a move that caused a cutoff. Moves that earn
+     * another turn or capture are ordered ahead anyway, so only quiet moves
+     * become killers and gain history.
+     * @param ply An integer that represents the distance from the root.
+     * @param player An integer, either 1 or 2 that represents the player
+     * who moved.
+     * @param move An integer from 0 to m - 1 that represents the move.
+     * @param depth An integer that represents the moves left to search
+     * below the position.
+     */
+    public void cutoff(int ply, int player, int move, int depth) {
+        if ((tactical[ply] & (1 << move)) != 0)
+            return;
+        int[] killer = killers[ply];
+        if (killer[0] != move) {
+            killer[1] = killer[0];
+            killer[0] = move;
+        }
+        int index = (player - 1) * Position.MAX_STORES + move;
+        history[index] += depth * depth;
+        if (history[index] > MAX_HISTORY) {
+            for (int i = 0; i < history.length; i++)
+                history[i] >>= 1;
+        }
+    }
+
+    /**
+     * This method prepares for a new search by clearing the killers and
+     * the history, which belong to the positions of the last search. A
+     * search then orders its moves the same way whatever was searched
+     * before it.
+     */
+    public void newSearch() {
+        for (int[] killer : killers) {
+            killer[0] = -1;
+            killer[1] = -1;
+        }
+        Arrays.fill(history, 0);
+    }
+
+    /**
+     * This method grows the arrays to hold the given number of plies.
+     * @param plies An integer that represents the deepest ply plus one.
+     */
+    public void ensure(int plies) {
+        if (killers.length >= plies)
+            return;
+        int[][] grownKillers = new int[plies][];
+        int[][] grownMoves = new int[plies][];
+        int[][] grownRanks = new int[plies][];
+        for (int i = 0; i < plies; i++) {
+            if (i < killers.length) {
+                grownKillers[i] = killers[i];
+                grownMoves[i] = moves[i];
+                grownRanks[i] = ranks[i];
+            } else {
+                grownKillers[i] = new int[] { -1, -1 };
+                grownMoves[i] = new int[Position.MAX_STORES];
+                grownRanks[i] = new int[Position.MAX_STORES];
+            }
+        }
+        killers = grownKillers;
+        moves = grownMoves;
+        ranks = grownRanks;
+        tactical = Arrays.copyOf(tactical, plies);
+    }
+
+    /**
+     * @param player An integer, either 1 or 2 that represents a player.
+     * @param move An integer from 0 to m - 1 that represents a move.
+     * @return The history of the move.
+     */
+    public int getHistory(int player, int move) {
+        return history[(player - 1) * Position.MAX_STORES + move];
+    }
+
+    /**
+     * @param ply An integer that represents the distance from the root.
+     * @return A copy of the two killer moves of the ply, -1 where there is
+     * none.
+     */
+    public int[] getKillers(int ply) {
+        return killers[ply].clone();
+    }
+}
@@ -0,0 +1,235 @@
+package algorithm;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class represents an opening book of the kalah game. The book is
+ * built offline by searching every position reachable in the first few
+ * moves from the start and recording the best move. It is written as a
+ * binary file of fixed size entries sorted by the Zobrist hash of the
+ * position, which is read back through a memory-mapped buffer and looked
+ * up with a binary search.
+ * <p>
+ * Usage: {@code java algorithm.OpeningBook <file> [plies] [millis] [seeds]}.
+ */
+public class OpeningBook {
+
+    private static final int MAGIC = 0x4B424F4B;
+    private static final int VERSION = 1;
+    private static final int HEADER = 12;
+    /**
+     * The size of an entry: the hash, the score and the move.
+     */
+    private static final int ENTRY = 16;
+
+    /**
+     * The entries of the book, sorted by hash.
+     */
+    private final ByteBuffer entries;
+    private final int size;
+
+    private OpeningBook(ByteBuffer entries, int size) {
+        this.entries = entries;
+        this.size = size;
+    }
+
+    /**
+     * This method builds a book by searching every position reachable from
+     * the start position in up to the given number of moves.
+     * @param start The position the game starts from.
+     * @param plies An integer that represents the moves from the start
+     * covered by the book.
+     * @param search The search used on each position. Its transposition
+     * table, if any, is shared between positions.
+     * @param millis A long that represents the time spent on each position.
+     * @return The book held in memory.
+     */
+    public static OpeningBook build(Position start, int plies, Search search, long millis) {
+        List<Position> positions = new ArrayList<Position>();
+        collect(start, plies, new HashMap<Long, Integer>(), positions);
+
+        long[] hashes = new long[positions.size()];
+        long[] packed = new long[positions.size()];
+        for (int i = 0; i < positions.size(); i++) {
+            Position position = positions.get(i);
+            int move = search.search(position, millis);
+            hashes[i] = position.hash();
+            packed[i] = ((long) search.getScore() << 32) | (move & 0xFFFFFFFFL);
+            if (Trace.ENABLED && Trace.isOn(Trace.INFO))
+                Trace.log(Trace.INFO, "book " + (i + 1) + "/" + positions.size() + " move "
+                        + move + " score " + search.getScore() + " " + position);
+        }
+
+        // sort the entries by hash
+        Integer[] order = new Integer[hashes.length];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        final long[] keys = hashes;
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                return Long.compare(keys[a], keys[b]);
+            }
+        });
+
+        ByteBuffer entries = ByteBuffer.allocate(hashes.length * ENTRY);
+        for (Integer i : order) {
+            entries.putLong(hashes[i]);
+            entries.putInt((int) (packed[i] >> 32));
+            entries.putInt((int) packed[i]);
+        }
+        return new OpeningBook(entries, hashes.length);
+    }
+
+    /**
+     * This method collects every position that is not over and is
+     * reachable from the position in up to the given number of moves. A
+     * position is expanded again when it is reached by a shorter path, with
+     * more moves left, than before.
+     * @param seen The most moves left with which each position was reached.
+     */
+    private static void collect(Position position, int plies, Map<Long, Integer> seen,
+                                List<Position> positions) {
+        if (position.getTurn() == 0)
+            return;
+        long hash = position.hash();
+        Integer before = seen.get(hash);
+        if (before != null && before >= plies)
+            return;
+        seen.put(hash, plies);
+        if (before == null)
+            positions.add(new Position(position));
+        if (plies == 0)
+            return;
+        for (int legal = position.legalMoves(); legal != 0; legal &= legal - 1) {
+            int move = Integer.numberOfTrailingZeros(legal);
+            Position child = new Position(position);
+            child.sow(move);
+            collect(child, plies - 1, seen, positions);
+        }
+    }
+
+    /**
+     * This method opens a book file by mapping it into memory.
+     * @param file The file written by {@link #write(File)}.
+     * @return The book backed by the file.
+     * @throws IOException if the file cannot be read or is not a book.
+     */
+    public static OpeningBook open(File file) throws IOException {
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                throw new IOException(file + " is not an opening book");
+            int size = in.readInt();
+            if (size < 0 || in.length() != HEADER + (long) size * ENTRY)
+                throw new IOException(file + " is truncated");
+            ByteBuffer entries = in.getChannel().map(FileChannel.MapMode.READ_ONLY,
+                    HEADER, (long) size * ENTRY);
+            return new OpeningBook(entries, size);
+        } finally {
+            // the mapping stays valid after the file is closed
+            in.close();
+        }
+    }
+
+    /**
+     * This method writes the book to a file.
+     * @param file The file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(File file) throws IOException {
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(size);
+            for (int i = 0; i < size * ENTRY; i++)
+                out.writeByte(entries.get(i));
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * This method looks up the book move of a position.
+     * @param position The position to look up.
+     * @return An integer from 0 to 5 that represents the best store
+     * relative to the player to move, or -1 if the position is not in the
+     * book.
+     */
+    public int probe(Position position) {
+        if (position.getStores() != Position.STORES)
+            return -1;
+        int entry = find(position.hash());
+        return entry < 0 ? -1 : entries.getInt(entry * ENTRY + 12);
+    }
+
+    /**
+     * @param position A position in the book.
+     * @return The score the book move was searched to, or 0 if the
+     * position is not in the book.
+     */
+    public int score(Position position) {
+        int entry = find(position.hash());
+        return entry < 0 ? 0 : entries.getInt(entry * ENTRY + 8);
+    }
+
+    /**
+     * This method is responsible for the binary search of the entries.
+     * @param hash A long that represents the hash to find.
+     * @return The number of the entry with the hash, or -1.
+     */
+    private int find(long hash) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long key = entries.getLong(mid * ENTRY);
+            if (key < hash)
+                low = mid + 1;
+            else if (key > hash)
+                high = mid - 1;
+            else
+                return mid;
+        }
+        return -1;
+    }
+
+    /**
+     * @return The number of positions in the book.
+     */
+    public int size() {
+        return size;
+    }
+
+    public static void main(String[] argv) throws IOException {
+        if (argv.length < 1) {
+            System.out.println("usage: java algorithm.OpeningBook <file> [plies] [millis] [seeds]");
+            System.exit(1);
+        }
+        int plies = argv.length > 1 ? Integer.parseInt(argv[1]) : 4;
+        long millis = argv.length > 2 ? Long.parseLong(argv[2]) : 1000;
+        int seeds = argv.length > 3 ? Integer.parseInt(argv[3]) : 3;
+
+        Search search = new Search(new ScoreEvaluator(), 1);
+        search.setTable(new TranspositionTable(Player.DEFAULT_TABLE_SIZE));
+        long start = System.nanoTime();
+        OpeningBook book = build(new Position(seeds), plies, search, millis);
+        book.write(new File(argv[0]));
+        System.out.printf("%d positions in %d ms%n", book.size(),
+                (System.nanoTime() - start) / 1000000);
+    }
+}
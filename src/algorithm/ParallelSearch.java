@@ -0,0 +1,153 @@
+package algorithm;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * This class represents a multi-threaded search using the Lazy SMP scheme.
+ * The main search runs on the calling thread while helper searches run the
+ * same position on a pool of threads. All searches share one lock-free
+ * transposition table, so the helpers fill it with results the main search
+ * picks up as cutoffs and move ordering. Every other helper searches one
+ * move deeper to spread the threads over different parts of the tree. The
+ * move returned is always the one chosen by the main search.
+ */
+public class ParallelSearch {
+
+    /**
+     * The search run on the calling thread.
+     */
+    private final Search main;
+    /**
+     * The searches run on the helper threads.
+     */
+    private final Search[] helpers;
+    private final ExecutorService pool;
+    private final Future<?>[] futures;
+
+    /**
+     * This constructor creates a parallel search around the main search.
+     * The main search must have a transposition table.
+     * @param main The search run on the calling thread.
+     * @param threads An integer that represents the total number of
+     * threads, including the calling thread.
+     */
+    public ParallelSearch(Search main, int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be at least 1: " + threads);
+        if (main.getTable() == null)
+            throw new IllegalArgumentException("a parallel search needs a transposition table");
+        this.main = main;
+        this.helpers = new Search[threads - 1];
+        this.futures = new Future<?>[threads - 1];
+        for (int i = 0; i < helpers.length; i++) {
+            helpers[i] = new Search(main.getEvaluator(), main.getDepth());
+            helpers[i].helper = true;
+        }
+        this.pool = Executors.newFixedThreadPool(Math.max(1, helpers.length),
+                new ThreadFactory() {
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "kalah-search");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+
+    /**
+     * This method searches the position to the depth of the main search.
+     * @param position The position to search. It is not modified.
+     * @return An integer from 0 to 5 that represents the best store
+     * relative to the player to move, or -1 if the game is over.
+     */
+    public int search(final Position position) {
+        return search(position, 0);
+    }
+
+    /**
+     * This method searches the position with iterative deepening until the
+     * time budget expires.
+     * @param position The position to search. It is not modified.
+     * @param millis A long that represents the time budget in milliseconds,
+     * or 0 to search to the depth of the main search.
+     * @return An integer from 0 to 5 that represents the best store
+     * relative to the player to move, or -1 if the game is over.
+     */
+    public int search(final Position position, final long millis) {
+        for (int i = 0; i < helpers.length; i++) {
+            final Search helper = helpers[i];
+            helper.configure(main);
+            if (millis == 0)
+                helper.setDepth(main.getDepth() + (i & 1));
+            helper.resetStop();
+            // each helper searches its own copy of the position
+            final Position copy = new Position(position);
+            futures[i] = pool.submit(new Runnable() {
+                public void run() {
+                    if (millis == 0)
+                        helper.search(copy);
+                    else
+                        helper.search(copy, millis);
+                }
+            });
+        }
+
+        try {
+            return millis == 0 ? main.search(position) : main.search(position, millis);
+        } finally {
+            stopHelpers();
+        }
+    }
+
+    /**
+     * This method stops the helpers and waits for them to finish.
+     */
+    private void stopHelpers() {
+        for (Search helper : helpers)
+            helper.stop();
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (Exception e) {
+                throw new IllegalStateException("helper search failed", e);
+            }
+        }
+    }
+
+    /**
+     * @return The number of positions visited by all threads in the last
+     * search.
+     */
+    public long getNodes() {
+        long nodes = main.getNodes();
+        for (Search helper : helpers)
+            nodes += helper.getNodes();
+        return nodes;
+    }
+
+    /**
+     * @return The statistics of the main search, with the positions
+     * visited by all threads.
+     */
+    public SearchStats getStats() {
+        return main.getStats(getNodes());
+    }
+
+    public int getThreads() {
+        return helpers.length + 1;
+    }
+
+    public Search getMain() {
+        return main;
+    }
+
+    /**
+     * This method stops the helper threads. The search cannot be used
+     * afterwards.
+     */
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
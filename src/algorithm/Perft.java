@@ -0,0 +1,169 @@
+package algorithm;
+
+/**
+ * This class represents a perft counter for the kalah game. It counts the
+ * positions at the end of every move sequence of a given length, where a
+ * move is a single sowing and a finished game ends its sequence early. The
+ * counts are a correctness check of the move generator and sowing rules
+ * and a throughput measure of the engine. Moves are made and unmade on a
+ * single board, so the counts also check that every move is taken back
+ * exactly.
+ * <p>
+ * Usage: {@code java algorithm.Perft [seeds] [depth] [divide] [bulk]
+ * [stores=n]}, or {@code java algorithm.Perft verify} to check the reference counts.
+ */
+public class Perft {
+
+    /**
+     * The seeds per store of the standard boards in {@link #REFERENCE}.
+     */
+    public static final int[] REFERENCE_SEEDS = {3, 4, 6};
+
+    /**
+     * Known-good counts from the start position of the standard boards,
+     * for depths 1 to 11. They were produced by an independent
+     * implementation of the rules on plain int arrays.
+     */
+    public static final long[][] REFERENCE = {
+            {6, 35, 182, 904, 4243, 19418, 87103, 387726, 1715619, 7557979, 33090434L},
+            {6, 35, 185, 942, 4690, 23233, 114430, 563055, 2763490, 13519608, 65870790L},
+            {6, 35, 190, 1056, 5882, 32243, 177827, 962153, 5197521, 27673819, 146117172L},
+    };
+
+    /**
+     * The board the moves are made and unmade on.
+     */
+    private final Position board;
+    /**
+     * True if positions one move from the end are counted by their legal
+     * moves instead of being played.
+     */
+    private boolean bulk;
+
+    public Perft() {
+        this(true);
+    }
+
+    /**
+     * @param bulk True to count the last move of each sequence without
+     * playing it.
+     */
+    public Perft(boolean bulk) {
+        this.bulk = bulk;
+        this.board = new Position();
+    }
+
+    /**
+     * This method counts the positions at the end of every move sequence
+     * of the given length.
+     * @param position The position to start from. It is not modified.
+     * @param depth An integer that represents the length of the sequences.
+     * @return A long that represents the number of positions counted.
+     */
+    public long perft(Position position, int depth) {
+        board.copyFrom(position);
+        return count(depth);
+    }
+
+    /**
+     * This method counts the positions below each move of the position.
+     * @param position The position to start from. It is not modified.
+     * @param depth An integer of at least 1 that represents the length of
+     * the sequences, including the first move.
+     * @return An array of longs, one per store relative to the player to
+     * move, where illegal moves count 0.
+     */
+    public long[] divide(Position position, int depth) {
+        long[] counts = new long[position.getStores()];
+        board.copyFrom(position);
+        for (int legal = board.legalMoves(); legal != 0; legal &= legal - 1) {
+            int move = Integer.numberOfTrailingZeros(legal);
+            int undo = board.make(move);
+            counts[move] = count(depth - 1);
+            board.unmake(undo);
+        }
+        return counts;
+    }
+
+    /**
+     * This method is responsible for counting the positions below the
+     * board.
+     */
+    private long count(int depth) {
+        Position position = board;
+        if (depth == 0 || position.getTurn() == 0)
+            return 1;
+
+        int legal = position.legalMoves();
+        if (bulk && depth == 1)
+            return Integer.bitCount(legal);
+
+        long nodes = 0;
+        for (; legal != 0; legal &= legal - 1) {
+            int move = Integer.numberOfTrailingZeros(legal);
+            int undo = position.make(move);
+            nodes += count(depth - 1);
+            position.unmake(undo);
+        }
+        return nodes;
+    }
+
+    /**
+     * This method checks the counts of the standard boards against the
+     * reference table.
+     * @param maxDepth An integer that represents the deepest count to check.
+     * @return The first mismatch as a message, or null if all counts match.
+     */
+    public String verify(int maxDepth) {
+        for (int i = 0; i < REFERENCE_SEEDS.length; i++) {
+            Position start = new Position(REFERENCE_SEEDS[i]);
+            for (int depth = 1; depth <= Math.min(maxDepth, REFERENCE[i].length); depth++) {
+                long count = perft(start, depth);
+                if (count != REFERENCE[i][depth - 1])
+                    return "seeds " + REFERENCE_SEEDS[i] + " depth " + depth + ": expected "
+                            + REFERENCE[i][depth - 1] + " but counted " + count;
+            }
+        }
+        return null;
+    }
+
+    public static void main(String[] argv) {
+        if (argv.length > 0 && argv[0].equals("verify")) {
+            String error = new Perft().verify(REFERENCE[0].length);
+            System.out.println(error == null ? "all counts match" : error);
+            System.exit(error == null ? 0 : 1);
+        }
+
+        int seeds = argv.length > 0 ? Integer.parseInt(argv[0]) : 3;
+        int depth = argv.length > 1 ? Integer.parseInt(argv[1]) : 9;
+        int stores = Position.STORES;
+        boolean divide = false;
+        boolean bulk = false;
+        for (int i = 2; i < argv.length; i++) {
+            if (argv[i].equals("divide"))
+                divide = true;
+            else if (argv[i].equals("bulk"))
+                bulk = true;
+            else if (argv[i].startsWith("stores="))
+                stores = Integer.parseInt(argv[i].substring(7));
+        }
+
+        Perft perft = new Perft(bulk);
+        Position start = new Position(stores, seeds);
+        long begin = System.nanoTime();
+        long nodes;
+        if (divide) {
+            long[] counts = perft.divide(start, depth);
+            nodes = 0;
+            for (int move = 0; move < counts.length; move++) {
+                System.out.printf("%d: %d%n", move + 1, counts[move]);
+                nodes += counts[move];
+            }
+        } else {
+            nodes = perft.perft(start, depth);
+        }
+        long nanos = Math.max(1, System.nanoTime() - begin);
+        System.out.printf("stores %d seeds %d depth %d: %d nodes in %d ms, %.0f nodes/sec%n",
+                stores, seeds, depth, nodes, nanos / 1000000, nodes * 1e9 / nanos);
+    }
+}
@@ -8,6 +8,23 @@ import java.util.*;
  */
 public class Player {
 
+    /**
+     * The default number of moves the search looks ahead.
+     */
+    public static final int DEFAULT_DEPTH = 12;
+
+    /**
+     * The default number of entries in the transposition table.
+     */
+    public static final int DEFAULT_TABLE_SIZE = 1 << 20;
+
+    /**
+     * The strategies a player can select moves with: an alpha-beta search
+     * or a Monte Carlo tree search.
+     */
+    public static final int MINIMAX = 0;
+    public static final int MONTE_CARLO = 1;
+
     /**
      * An array of integers that represent the current board state
      */
@@ -15,124 +32,157 @@ public class Player {
 
     private int playerID;
 
-    private Board simBoard;
+    /**
+     * A position used to simulate a single move.
+     */
+    private Position simPosition;
 
-    // An 2D array that holds game outcomes of each move
-    Map<Integer, Integer[]> scores;
+    /**
+     * The position handed to the search on each play.
+     */
+    private Position position;
+
+    /**
+     * The alpha-beta search used to select moves.
+     */
+    private Search search;
+
+    /**
+     * The multi-threaded search used when more than one thread is set, or
+     * null.
+     */
+    private ParallelSearch parallel;
+
+    /**
+     * The Monte Carlo tree search, created when it is first selected, or
+     * null.
+     */
+    private MonteCarloSearch monteCarlo;
+
+    private int strategy;
 
     public Player(int playerID) {
-        this.board = new int[14];
+        this(playerID, DEFAULT_TABLE_SIZE);
+    }
+
+    /**
+     * @param playerID An integer, either 1 or 2 that represents the player.
+     * @param tableSize An integer that represents the number of entries in
+     * the transposition table, or 0 to search without one.
+     */
+    public Player(int playerID, int tableSize) {
         this.playerID = playerID;
-        this.simBoard = new Board();
-        this.scores = new HashMap<Integer, Integer[]>();
+        this.simPosition = new Position();
+        this.position = new Position();
+        this.board = position.toIntArray();
+        this.search = new Search(new ScoreEvaluator(), DEFAULT_DEPTH);
+        if (tableSize > 0)
+            this.search.setTable(new TranspositionTable(tableSize));
     }
 
+    /**
+     * This method searches the board for the best move of the player.
+     * @param board An array of 2m + 2 integers representing the seeds in
+     * each piece of a board with m stores a side.
+     * @return An integer from 1 to 6 that represents the selected store.
+     */
     public int makePlay(int[] board) {
         // set board
         this.board = board;
-        System.out.println("START");
-
-        scores = simulateGame(playerID, board, true);
-
-        // calculate the best move
-        int move = calcBestMove(scores);
-
-        scores.clear();
-
-        return move;
+        position.set(board, playerID);
+        return makePlay(position, 0);
     }
 
-    public Map<Integer, Integer[]> simulateGame(int player, int[] board, boolean first) {
-        if (first)
-            player = playerID;
-
-        Queue<Integer> moves = getMoves(player, board);
-
-
-//
-//        // initialize to 0
-//        for (Integer i : moves)
-//            for (int j = 0; j < 3; j++)
-//                scores.put(i, (new Integer[]{0, 0, 0}));
-
-        Iterator iter = moves.iterator();
-
-        // while there are moves left
-        while (iter.hasNext()) {
-            // get the move
-            int move = moves.poll();
-
-
-            // simulate the move
-            int turn = simulateMove(move, player, board);
-
-            int[] tmpBoard = simBoard.convertToIntArray();
-
-            // Base Case: game over
-            if (turn == 0 || tmpBoard[6] > 18 || tmpBoard[13] > 18) {
-
-                // get score of game
-                int moveScore = getScore(player, tmpBoard);
-
-                // count game
-                int gameCount = 2;
-
-                int winner;
-                // get winner
-                if (moveScore > 0)
-                    winner = 2;
-                else if (moveScore == 0)
-                    winner = 1;
-                else
-                    winner = 0;
-
-                Integer[] array = new Integer[] {moveScore, winner, gameCount};
-                scores.put(move, array);
-
-
+    /**
+     * This method searches the board with iterative deepening for the best
+     * move of the player found within the time budget.
+     * @param board An array of 2m + 2 integers representing the seeds in
+     * each piece of a board with m stores a side.
+     * @param millis A long that represents the time budget in milliseconds.
+     * @return An integer from 1 to 6 that represents the selected store.
+     */
+    public int makePlay(int[] board, long millis) {
+        this.board = board;
+        position.set(board, playerID);
+        return makePlay(position, millis);
+    }
 
-            } else {
-                // recursively call simGame until complete
-                simulateGame(turn, simBoard.convertToIntArray(), false);
-            }
+    /**
+     * This method searches a position for the best move of the player to
+     * move in it.
+     * @param position The position to search. It is not modified.
+     * @param millis A long that represents the time budget in milliseconds,
+     * or 0 to search to the depth of the player.
+     * @return An integer from 1 to 6 that represents the selected store.
+     */
+    public int makePlay(Position position, long millis) {
+        int move;
+        if (strategy == MONTE_CARLO)
+            move = millis == 0 ? monteCarlo.search(position) : monteCarlo.search(position, millis);
+        else if (millis == 0)
+            move = parallel != null ? parallel.search(position) : search.search(position);
+        else
+            move = parallel != null ? parallel.search(position, millis)
+                    : search.search(position, millis);
+
+        if (Trace.ENABLED && Trace.isOn(Trace.INFO)) {
+            SearchStats stats = getStats();
+            Trace.log(Trace.INFO, "player " + position.getTurn() + " plays " + (move + 1)
+                    + " score " + stats.getScore() + " depth " + stats.getDepth()
+                    + " in " + position);
         }
-
-        // return the fully populated scores array
-        return scores;
-
+        return move + 1;
     }
 
+    /**
+     * This method lists the legal moves of a player. It allocates a queue
+     * and a boxed integer per move, so the search never calls it; see
+     * {@link #getMoves(int, int[], int[])}.
+     * @param player An integer, either 1 or 2 that represents a player.
+     * @param board An array of 2m + 2 integers representing the seeds in
+     * each piece of a board with m stores a side.
+     * @return A queue of the stores from 0 to 5 that have seeds.
+     */
     public Queue<Integer> getMoves(int player, int[] board) {
         Queue<Integer> moves = new LinkedList<Integer>();
-        for (int i = 0; i < 6; i++) {
-            int pieceIndex = i;
-            // adjust if player 2
-            if (player == 2)
-                pieceIndex += (6 - i) * 2;
-
-            // check if the piece has seeds
-            if (board[pieceIndex] > 0)
-                moves.add(i); // add the piece to potential moves
-        }
+        int[] buffer = new int[Position.MAX_STORES];
+        int count = getMoves(player, board, buffer);
+        for (int i = 0; i < count; i++)
+            moves.add(buffer[i]);
         return moves;
     }
 
-    public int simulateMove(int move, int playerID, int[] board) {
-        System.out.println("TRANSFER: Player: " + playerID + "MOVE: " + move);
-        System.out.println("Before");
-        printBoard(board);
-        int turn = this.simBoard.transfer(move, playerID, board);
-        System.out.println("After piece: " + move);
-        printBoard(simBoard.convertToIntArray());
-//        System.out.println("*****************************************************************");
+    /**
+     * This method writes the legal moves of a player into a buffer
+     * supplied by the caller without allocating.
+     * @param player An integer, either 1 or 2 that represents a player.
+     * @param board An array of 2m + 2 integers representing the seeds in
+     * each piece of a board with m stores a side.
+     * @param moves An array of at least as many integers as stores on a
+     * side to be filled with the stores that have seeds.
+     * @return The number of legal moves written.
+     */
+    public int getMoves(int player, int[] board, int[] moves) {
+        simPosition.set(board, player);
+        return simPosition.moves(moves);
+    }
 
+    public int simulateMove(int move, int playerID, int[] board) {
+        simPosition.set(board, playerID);
+        if (Trace.ENABLED && Trace.isOn(Trace.DEBUG))
+            Trace.log(Trace.DEBUG, "transfer player " + playerID + " move " + move
+                    + " before " + simPosition);
+        int turn = simPosition.sow(move);
+        if (Trace.ENABLED && Trace.isOn(Trace.DEBUG))
+            Trace.log(Trace.DEBUG, "transfer player " + playerID + " move " + move
+                    + " after " + simPosition);
 
         return turn;
     }
 
     public int getScore(int player, int[] board) {
-        int pl1Score = board[6];
-        int pl2Score = board[13];
+        int pl1Score = board[board.length / 2 - 1];
+        int pl2Score = board[board.length - 1];
         int diff;
         if (player == 1)
             diff = pl1Score - pl2Score;
@@ -149,8 +199,8 @@ public class Player {
 
         for (int i : scores.keySet()) {
             winRatio = (((double)scores.get(i)[1]) / (double)scores.get(i)[2]) * 100;
-//            System.out.println("bestScore: " + bestScore);
-            System.out.println(i + " Win Ratio: " + winRatio);
+            if (Trace.ENABLED && Trace.isOn(Trace.DEBUG))
+                Trace.log(Trace.DEBUG, i + " win ratio " + winRatio);
 
 
             if (winRatio > bestRatio){
@@ -167,6 +217,103 @@ public class Player {
         return bestMove + 1;
     }
 
+    public int getPlayerID() {
+        return playerID;
+    }
+
+    public int getDepth() {
+        return search.getDepth();
+    }
+
+    /**
+     * @param depth An integer that represents the number of moves the
+     * search looks ahead.
+     */
+    public void setDepth(int depth) {
+        search.setDepth(depth);
+    }
+
+    /**
+     * @param evaluator The evaluator used to score positions at the end of
+     * the search.
+     */
+    public void setEvaluator(Evaluator evaluator) {
+        search.setEvaluator(evaluator);
+    }
+
+    /**
+     * @param endgame The endgame database the search probes, or null.
+     */
+    public void setEndgame(EndgameDatabase endgame) {
+        search.setEndgame(endgame);
+    }
+
+    public int getThreads() {
+        return parallel != null ? parallel.getThreads() : 1;
+    }
+
+    /**
+     * This method sets the number of threads used to search. With more
+     * than one thread the search runs in Lazy SMP mode, with helper threads
+     * sharing the transposition table.
+     * @param threads An integer that represents the number of threads.
+     */
+    public void setThreads(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be at least 1: " + threads);
+        if (parallel != null)
+            parallel.shutdown();
+        parallel = threads > 1 ? new ParallelSearch(search, threads) : null;
+        if (monteCarlo != null)
+            monteCarlo.setThreads(threads);
+    }
+
+    public Search getSearch() {
+        return search;
+    }
+
+    public int getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * This method sets how the player selects moves.
+     * @param strategy An integer, either MINIMAX or MONTE_CARLO.
+     */
+    public void setStrategy(int strategy) {
+        if (strategy != MINIMAX && strategy != MONTE_CARLO)
+            throw new IllegalArgumentException("unknown strategy: " + strategy);
+        if (strategy == MONTE_CARLO && monteCarlo == null)
+            monteCarlo = new MonteCarloSearch(MonteCarloSearch.DEFAULT_CAPACITY, getThreads());
+        this.strategy = strategy;
+    }
+
+    /**
+     * @return The Monte Carlo tree search of the player, or null if the
+     * strategy was never selected.
+     */
+    public MonteCarloSearch getMonteCarlo() {
+        return monteCarlo;
+    }
+
+    /**
+     * @return The statistics of the search behind the last play.
+     */
+    public SearchStats getStats() {
+        if (strategy == MONTE_CARLO)
+            return monteCarlo.getStats();
+        return parallel != null ? parallel.getStats() : search.getStats();
+    }
+
+    /**
+     * This method draws a board of any size; see {@link Position#format()}.
+     * @param board An array of 2m + 2 integers representing the seeds in
+     * each piece of a board with m stores a side.
+     */
+    public void printBoard(int[] board) {
+        System.out.print(new Position(board, playerID).format());
+    }
+
     public void printScores(Map<Integer, Integer[]> scores) {
         for (Integer[] score : scores.values())
             System.out.printf("%d, %d, % d", score[0], score[1], score[2]);
@@ -0,0 +1,195 @@
+package algorithm;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * This class represents a search on the opponent's time. Once a move is
+ * chosen, every position the opponent can hand back is searched on a
+ * background thread, the reply the transposition table expects first,
+ * with the settings and budget of the main search. When the opponent has
+ * moved the pondering is stopped: a position that was searched to the end
+ * is answered at once, and otherwise the main search starts with the
+ * transposition table the pondering filled.
+ * <p>
+ * The pondering search shares the transposition table of the main search
+ * but never runs at the same time as it.
+ */
+public class Ponderer {
+
+    /**
+     * The most moves of the opponent in a row, through extra turns, that
+     * are followed to find the positions handed back.
+     */
+    private static final int MAX_REPLIES = 3;
+
+    /**
+     * The search the settings are taken from.
+     */
+    private final Search main;
+    /**
+     * The search run on the background thread.
+     */
+    private final Search search;
+    private final ExecutorService pool;
+    private Future<?> future;
+    /**
+     * True once the pondering in progress has been asked to stop.
+     */
+    private volatile boolean stopping;
+    /**
+     * The statistics of each position searched to the end, written by the
+     * background thread and read once it has finished.
+     */
+    private final Map<Position, SearchStats> results;
+
+    /**
+     * @param main The search whose evaluator, table, databases and depth
+     * the pondering uses.
+     */
+    public Ponderer(Search main) {
+        this.main = main;
+        this.search = new Search(main.getEvaluator(), main.getDepth());
+        // the main search ages the table when it starts
+        this.search.helper = true;
+        this.results = new HashMap<Position, SearchStats>();
+        this.pool = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "kalah-ponder");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * This method starts pondering the positions the opponent can reach
+     * after a move. Nothing is pondered if the move earns another turn or
+     * ends the game, since the next position is already known.
+     * @param position The position the move was chosen in. It is not
+     * modified.
+     * @param move An integer that represents the store chosen, relative to
+     * the player to move.
+     * @param millis A long that represents the time budget of each
+     * position in milliseconds, or 0 to search to the depth of the main
+     * search.
+     */
+    public void start(Position position, int move, final long millis) {
+        stop();
+        results.clear();
+        int me = position.getTurn();
+        Position next = new Position(position);
+        next.sow(move);
+        if (next.getTurn() == me || next.getTurn() == 0)
+            return;
+
+        final List<Position> replies = new ArrayList<Position>();
+        collect(next, me, MAX_REPLIES, replies);
+        TranspositionTable table = main.getTable();
+        if (table != null) {
+            // bring the expected reply forward
+            int expected = TranspositionTable.move(table.probe(next.hash()));
+            if (expected >= 0 && next.isLegal(expected)) {
+                Position reply = new Position(next);
+                reply.sow(expected);
+                if (replies.remove(reply))
+                    replies.add(0, reply);
+            }
+        }
+
+        search.configure(main);
+        search.resetStop();
+        stopping = false;
+        future = pool.submit(new Runnable() {
+            public void run() {
+                for (Position reply : replies) {
+                    if (stopping)
+                        return;
+                    int best = millis == 0 ? search.search(reply) : search.search(reply, millis);
+                    if (!stopping && best >= 0)
+                        results.put(reply, search.getStats().withSource(SearchStats.PONDER));
+                }
+            }
+        });
+    }
+
+    /**
+     * This method collects the positions where the player is to move again
+     * after one or more moves of the opponent.
+     */
+    private static void collect(Position position, int me, int plies, List<Position> replies) {
+        for (int legal = position.legalMoves(); legal != 0; legal &= legal - 1) {
+            Position reply = new Position(position);
+            reply.sow(Integer.numberOfTrailingZeros(legal));
+            if (reply.getTurn() == me) {
+                if (!replies.contains(reply))
+                    replies.add(reply);
+            } else if (reply.getTurn() != 0 && plies > 1) {
+                collect(reply, me, plies - 1, replies);
+            }
+        }
+    }
+
+    /**
+     * This method stops the pondering and waits for the background thread
+     * to finish.
+     */
+    public void stop() {
+        stopping = true;
+        search.stop();
+        finish();
+    }
+
+    /**
+     * This method stops the pondering and looks the position the opponent
+     * handed back up in its results.
+     * @param position The position to move in.
+     * @return The statistics of the search of the position, with the move
+     * to play, or null if it was not searched to the end.
+     */
+    public SearchStats stop(Position position) {
+        stop();
+        SearchStats stats = results.get(position);
+        results.clear();
+        return stats;
+    }
+
+    /**
+     * This method waits for the pondering to search every position.
+     */
+    void finish() {
+        if (future == null)
+            return;
+        try {
+            future.get();
+        } catch (Exception e) {
+            throw new IllegalStateException("pondering failed", e);
+        } finally {
+            future = null;
+        }
+    }
+
+    /**
+     * @return The number of positions searched to the end so far. It is
+     * only up to date once the pondering has stopped.
+     */
+    public int getPondered() {
+        return results.size();
+    }
+
+    /**
+     * This method stops the background thread. The ponderer cannot be
+     * used afterwards.
+     */
+    public void shutdown() {
+        stopping = true;
+        search.stop();
+        pool.shutdownNow();
+    }
+}
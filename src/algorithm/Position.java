@@ -0,0 +1,755 @@
+package algorithm;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * This class represents a compact board of the kalah game. The board is
+ * stored as an array of bytes, one per piece, using the same indexes as
+ * the rest of the algorithm package. On the standard board of six stores
+ * a side, stores 0 to 5 and house 6 belong to player 1 and stores 7 to 12
+ * and house 13 belong to player 2. Boards of Kalah(m,n) with m stores a
+ * side follow the same layout: stores 0 to m - 1 and house m belong to
+ * player 1, stores m + 1 to 2m and house 2m + 1 belong to player 2.
+ * Sowing, capturing, extra turns and game over are all executed directly
+ * on the array so a position can be copied and played without allocating
+ * any objects.
+ * <p>
+ * The static {@link #piece(int, int)}, {@link #across(int)},
+ * {@link #houseIndex(int)} and {@link #owner(int)} describe the standard
+ * board; their instance counterparts describe the board of the position.
+ */
+public class Position {
+
+    /**
+     * The number of pieces (stores and houses) on the standard board.
+     */
+    public static final int PIECES = 14;
+    /**
+     * The number of stores on each side of the standard board.
+     */
+    public static final int STORES = 6;
+    /**
+     * The most stores on each side of a board.
+     */
+    public static final int MAX_STORES = 12;
+    /**
+     * The most seeds a board can hold, so every piece fits in a byte.
+     */
+    public static final int MAX_SEEDS = 127;
+
+    /**
+     * The number of Zobrist keys per piece, one for every seed count a
+     * piece can hold.
+     */
+    private static final int COUNTS = 128;
+    /**
+     * An array of random longs, one for every piece and seed count, that
+     * are combined into the hash of a position.
+     */
+    private static final long[] KEYS = new long[(2 * MAX_STORES + 2) * COUNTS];
+    /**
+     * A random long that is combined into the hash when player 2 moves.
+     */
+    private static final long SIDE;
+
+    static {
+        Random random = new Random(0x6b616c6168L);
+        // the keys of the standard board come first so its hashes are kept
+        for (int i = 0; i < PIECES * COUNTS; i++)
+            KEYS[i] = random.nextLong();
+        SIDE = random.nextLong();
+        for (int i = PIECES * COUNTS; i < KEYS.length; i++)
+            KEYS[i] = random.nextLong();
+    }
+
+    /**
+     * An array of bytes that holds the number of seeds in each piece.
+     */
+    private byte[] pits;
+    /**
+     * The number of stores on each side, the number of pieces and the
+     * number of pieces a sowing passes through before it comes back to the
+     * store it started from: every piece but the opponents house.
+     */
+    private int stores;
+    private int pieces;
+    private int lap;
+    /**
+     * An integer that represents the player whose turn it is, or 0 if the
+     * game is over.
+     */
+    private int turn;
+
+    /**
+     * This is the default constructor for the Position class. It sets the
+     * board to the initial game state with 3 seeds in every store.
+     */
+    public Position() {
+        this(3);
+    }
+
+    /**
+     * This constructor sets the board to an initial game state with the
+     * given number of seeds in every store and player 1 to move.
+     * @param seeds An integer that represents the seeds in each store.
+     */
+    public Position(int seeds) {
+        this(STORES, seeds);
+    }
+
+    /**
+     * This constructor sets the board to the initial game state of
+     * Kalah(stores, seeds) with player 1 to move.
+     * @param stores An integer from 1 to MAX_STORES that represents the
+     * stores on each side.
+     * @param seeds An integer that represents the seeds in each store.
+     */
+    public Position(int stores, int seeds) {
+        if (seeds < 0 || 2 * stores * seeds > MAX_SEEDS)
+            throw new IllegalArgumentException("at most " + MAX_SEEDS + " seeds fit a board: "
+                    + stores + " stores of " + seeds);
+        resize(stores);
+        for (int i = 0; i < pieces; i++) {
+            if (i != stores && i != pieces - 1)
+                pits[i] = (byte) seeds;
+        }
+        this.turn = 1;
+    }
+
+    /**
+     * This constructor copies the given board array.
+     * @param board An array of 2m + 2 integers representing the seeds in
+     * each piece of a board with m stores a side.
+     * @param turn An integer, either 1 or 2 that represents the player to
+     * move.
+     */
+    public Position(int[] board, int turn) {
+        set(board, turn);
+    }
+
+    /**
+     * This constructor copies another position.
+     * @param other The position to copy.
+     */
+    public Position(Position other) {
+        copyFrom(other);
+    }
+
+    /**
+     * This method changes the number of stores on each side of the board.
+     * The seeds are not kept.
+     */
+    private void resize(int stores) {
+        if (stores < 1 || stores > MAX_STORES)
+            throw new IllegalArgumentException("stores must be from 1 to " + MAX_STORES + ": "
+                    + stores);
+        this.stores = stores;
+        this.pieces = 2 * stores + 2;
+        this.lap = pieces - 1;
+        this.pits = new byte[pieces];
+    }
+
+    /**
+     * This method sets the position to the given board array. The board
+     * size follows the array.
+     * @param board An array of 2m + 2 integers representing the seeds in
+     * each piece of a board with m stores a side.
+     * @param turn An integer, either 1 or 2 that represents the player to
+     * move.
+     */
+    public void set(int[] board, int turn) {
+        if (board.length != pieces) {
+            if (board.length % 2 != 0)
+                throw new IllegalArgumentException("a board has an even number of pieces: "
+                        + board.length);
+            resize(board.length / 2 - 1);
+        }
+        set(board, 0, turn);
+    }
+
+    /**
+     * This method sets the position to a board inside a larger array.
+     * @param boards An array of integers holding the seeds in each piece
+     * of the board from the given offset.
+     * @param offset An integer that represents the index of the first
+     * piece of the board.
+     * @param turn An integer, either 1 or 2 that represents the player to
+     * move, or 0 if the game is over.
+     * @throws IllegalArgumentException if a piece holds a negative number
+     * of seeds, the board holds more than MAX_SEEDS or the turn is not 0,
+     * 1 or 2. The position is then left in an undefined state.
+     */
+    public void set(int[] boards, int offset, int turn) {
+        checkTurn(turn);
+        int total = 0;
+        for (int i = 0; i < pieces; i++) {
+            int seeds = boards[offset + i];
+            total = checkSeeds(i, seeds, total);
+            pits[i] = (byte) seeds;
+        }
+        this.turn = turn;
+    }
+
+    /**
+     * This method sets the position to a board held as one byte per piece
+     * in a buffer. The buffer's position and limit are not changed.
+     * @param buffer A buffer holding the seeds in each piece of the board
+     * from the given offset.
+     * @param offset An integer that represents the index of the first
+     * piece of the board.
+     * @param turn An integer, either 1 or 2 that represents the player to
+     * move, or 0 if the game is over.
+     * @throws IllegalArgumentException like {@link #set(int[], int, int)};
+     * a byte above 127 reads as a negative number of seeds.
+     */
+    public void set(ByteBuffer buffer, int offset, int turn) {
+        checkTurn(turn);
+        int total = 0;
+        for (int i = 0; i < pieces; i++) {
+            byte seeds = buffer.get(offset + i);
+            total = checkSeeds(i, seeds, total);
+            pits[i] = seeds;
+        }
+        this.turn = turn;
+    }
+
+    private static void checkTurn(int turn) {
+        if (turn < 0 || turn > 2)
+            throw new IllegalArgumentException("the player to move is 1 or 2, or 0 when the game"
+                    + " is over: " + turn);
+    }
+
+    /**
+     * This method checks the seeds of a piece against the seeds already
+     * on the board, so every piece and every house a move sows into fits
+     * a byte and has a Zobrist key.
+     * @return The seeds on the board including the piece.
+     */
+    private static int checkSeeds(int piece, int seeds, int total) {
+        if (seeds < 0)
+            throw new IllegalArgumentException("piece " + piece + " holds " + seeds + " seeds");
+        if (seeds > MAX_SEEDS - total)
+            throw new IllegalArgumentException("at most " + MAX_SEEDS + " seeds fit a board: piece "
+                    + piece + " brings it to " + ((long) total + seeds));
+        return total + seeds;
+    }
+
+    /**
+     * This method copies the state of another position into this one. It
+     * only allocates when the other board has a different size.
+     * @param other The position to copy.
+     */
+    public void copyFrom(Position other) {
+        if (pits == null || other.pieces != pieces)
+            resize(other.stores);
+        System.arraycopy(other.pits, 0, pits, 0, pieces);
+        this.turn = other.turn;
+    }
+
+    /**
+     * This method copies the seeds of each piece into the given array.
+     * @param board An array of at least {@link #getPieces()} integers to be
+     * filled.
+     */
+    public void copyTo(int[] board) {
+        for (int i = 0; i < pieces; i++)
+            board[i] = pits[i];
+    }
+
+    public int[] toIntArray() {
+        int[] board = new int[pieces];
+        copyTo(board);
+        return board;
+    }
+
+    /**
+     * @param piece An integer that represents a piece of the board.
+     * @return The number of seeds in the piece.
+     */
+    public int get(int piece) {
+        return pits[piece];
+    }
+
+    /**
+     * @param piece An integer that represents a piece of the board.
+     * @param seeds An integer that represents the seeds to put in it.
+     */
+    public void put(int piece, int seeds) {
+        pits[piece] = (byte) seeds;
+    }
+
+    public int getTurn() {
+        return turn;
+    }
+
+    public void setTurn(int turn) {
+        this.turn = turn;
+    }
+
+    /**
+     * @param player An integer, either 1 or 2 that represents a player.
+     * @return The number of seeds in the player's house.
+     */
+    public int house(int player) {
+        return pits[houseOf(player)];
+    }
+
+    /**
+     * This method calculates the difference between the houses from the
+     * point of view of the given player.
+     * @param player An integer, either 1 or 2 that represents a player.
+     * @return An integer that represents the player's lead in seeds.
+     */
+    public int score(int player) {
+        if (player == 1)
+            return pits[stores] - pits[pieces - 1];
+        else
+            return pits[pieces - 1] - pits[stores];
+    }
+
+    /**
+     * This method calculates the Zobrist hash of the position from the
+     * seeds in every piece and the player to move.
+     * @return A long that represents the hash of the position.
+     */
+    public long hash() {
+        long hash = turn == 2 ? SIDE : 0;
+        for (int i = 0; i < pieces; i++)
+            hash ^= KEYS[i * COUNTS + pits[i]];
+        return hash;
+    }
+
+    /**
+     * This method checks if the player to move can play the given store.
+     * @param move An integer from 0 to m - 1 that represents a store
+     * relative to the player to move.
+     * @return true if the store has seeds, otherwise false.
+     */
+    public boolean isLegal(int move) {
+        return pits[pieceOf(move, turn)] > 0;
+    }
+
+    /**
+     * This method generates the legal moves of the player to move as a
+     * bitmask, so they can be visited without allocating:
+     * {@code for (int legal = position.legalMoves(); legal != 0;
+     * legal &= legal - 1)} visits each move as
+     * {@code Integer.numberOfTrailingZeros(legal)}, from store 0 upwards.
+     * @return An integer with bit m set if store m relative to the player
+     * to move has seeds, or 0 if the game is over.
+     */
+    public int legalMoves() {
+        if (turn == 0)
+            return 0;
+        byte[] pits = this.pits;
+        int stores = this.stores;
+        int legal = 0;
+        if (turn == 1) {
+            for (int move = 0; move < stores; move++) {
+                if (pits[move] > 0)
+                    legal |= 1 << move;
+            }
+        } else {
+            int last = 2 * stores;
+            for (int move = 0; move < stores; move++) {
+                if (pits[last - move] > 0)
+                    legal |= 1 << move;
+            }
+        }
+        return legal;
+    }
+
+    /**
+     * This method writes the legal moves of the player to move into a
+     * buffer supplied by the caller, such as one array per ply of a search.
+     * @param moves An array of at least {@link #getStores()} integers to be
+     * filled from the start with stores relative to the player to move, in
+     * increasing order.
+     * @return The number of legal moves written.
+     */
+    public int moves(int[] moves) {
+        int count = 0;
+        for (int legal = legalMoves(); legal != 0; legal &= legal - 1)
+            moves[count++] = Integer.numberOfTrailingZeros(legal);
+        return count;
+    }
+
+    /**
+     * This method is responsible for executing a move for the player to
+     * move. The seeds of the selected store are sown counter clockwise,
+     * skipping the opponents house. If the last seed lands in the players
+     * house the player moves again. If it lands in an empty store owned by
+     * the player and the store across from it is not empty, both stores
+     * are emptied into the players house. If either side of the board is
+     * left without seeds the remaining seeds are cleared into their owners
+     * houses and the game is over.
+     * @param move An integer from 0 to 5 that represents a store relative
+     * to the player to move.
+     * @return An integer that represents the player whose turn is next, or
+     * 0 if the game is over.
+     */
+    public int sow(int move) {
+        make(move);
+        if (turn == 0)
+            clear();
+        return turn;
+    }
+
+    /**
+     * This method executes a move like {@link #sow(int)}, except that when
+     * the game ends the seeds left in the stores are not cleared into the
+     * houses, so the move can be taken back with {@link #unmake(int)}.
+     * {@link #result(int)} gives the final lead either way.
+     * <p>
+     * The returned undo information packs the seeds sown in bits 0 to 7,
+     * the source piece in bits 8 to 12, the last piece sown in bits 13 to
+     * 17, the seeds captured from the store across in bits 18 to 25 and
+     * the player who moved in bits 26 and up.
+     * @param move An integer from 0 to 5 that represents a store relative
+     * to the player to move.
+     * @return An integer that holds the undo information of the move.
+     */
+    public int make(int move) {
+        byte[] pits = this.pits;
+        int pieces = this.pieces;
+        int player = turn;
+        int source = pieceOf(move, player);
+        int house = houseOf(player);
+        int skip = player == 1 ? pieces - 1 : stores;
+        int seeds = pits[source];
+        pits[source] = 0;
+
+        int dest = source;
+        for (int left = seeds; left > 0; ) {
+            dest++;
+            // loop back to beginning
+            if (dest == pieces)
+                dest = 0;
+            // skip opponents home
+            if (dest == skip)
+                continue;
+            pits[dest]++;
+            left--;
+        }
+
+        int captured = 0;
+        // if the last piece is not the players house
+        if (dest != house) {
+            if (pits[dest] == 1 && ownerOf(dest) == player) {
+                int opposite = acrossOf(dest);
+                captured = pits[opposite];
+                if (captured > 0) {
+                    pits[house] += captured + 1;
+                    pits[opposite] = 0;
+                    pits[dest] = 0;
+                }
+            }
+            turn = player == 1 ? 2 : 1;
+        }
+
+        // check is game is over
+        if (isGameOver())
+            turn = 0;
+        return seeds | source << 8 | dest << 13 | captured << 18 | player << 26;
+    }
+
+    /**
+     * This method takes back the last move made with {@link #make(int)}.
+     * @param undo An integer that holds the undo information returned by
+     * the move.
+     */
+    public void unmake(int undo) {
+        byte[] pits = this.pits;
+        int pieces = this.pieces;
+        int seeds = undo & 0xFF;
+        int source = (undo >>> 8) & 0x1F;
+        int last = (undo >>> 13) & 0x1F;
+        int captured = (undo >>> 18) & 0xFF;
+        int player = undo >>> 26;
+        turn = player;
+
+        if (captured > 0) {
+            pits[houseOf(player)] -= captured + 1;
+            pits[acrossOf(last)] = (byte) captured;
+            pits[last] = 1;
+        }
+
+        int skip = player == 1 ? pieces - 1 : stores;
+        int dest = source;
+        for (int left = seeds; left > 0; ) {
+            dest++;
+            if (dest == pieces)
+                dest = 0;
+            if (dest == skip)
+                continue;
+            pits[dest]--;
+            left--;
+        }
+        pits[source] = (byte) seeds;
+    }
+
+    /**
+     * This method calculates the lead of a player once the seeds left in
+     * the stores are cleared into their owners houses. For a game that is
+     * over it is the final lead whether or not the stores were cleared.
+     * @param player An integer, either 1 or 2 that represents a player.
+     * @return An integer that represents the player's lead in seeds.
+     */
+    public int result(int player) {
+        return score(player) + side(player) - side(3 - player);
+    }
+
+    /**
+     * This method checks if a move of the given player ends in the
+     * player's house, which earns another turn.
+     * @param move An integer from 0 to m - 1 that represents a store
+     * relative to the player.
+     * @param player An integer, either 1 or 2 that represents a player.
+     * @return true if the store has seeds and the last one lands in the
+     * house, otherwise false.
+     */
+    public boolean isExtraTurn(int move, int player) {
+        int seeds = pits[pieceOf(move, player)];
+        return seeds > 0 && landing(move, seeds, player) == stores;
+    }
+
+    /**
+     * This method estimates the seeds a move of the given player captures.
+     * The seeds the move itself sows into the store across are ignored
+     * except for a full lap, so the count is exact for stores with fewer
+     * seeds than it takes to reach the store across.
+     * @param move An integer from 0 to m - 1 that represents a store
+     * relative to the player.
+     * @param player An integer, either 1 or 2 that represents a player.
+     * @return The seeds moved into the house by the capture, including the
+     * last seed sown, or 0 if the move does not capture.
+     */
+    public int capture(int move, int player) {
+        int seeds = pits[pieceOf(move, player)];
+        if (seeds == 0 || seeds > lap)
+            return 0;
+        int last = landing(move, seeds, player);
+        if (last >= stores)
+            return 0;
+        // turn the distance sown back into a store relative to the player
+        int piece = pieceOf(player == 2 ? stores - 1 - last : last, player);
+        // a full lap empties the store it started from and refills it
+        boolean empty = seeds == lap || pits[piece] == 0;
+        int across = pits[acrossOf(piece)] + (seeds == lap ? 1 : 0);
+        return empty && across > 0 ? across + 1 : 0;
+    }
+
+    /**
+     * This method finds where the last seed of a move of the given player
+     * lands, counted in sowing order from the first store of the player:
+     * 0 to m - 1 for the players stores, m for the players house and
+     * m + 1 to 2m for the opponents stores. Player 2 numbers its stores
+     * from the house backwards, so its store m - 1 is sown first.
+     * @param move An integer from 0 to m - 1 that represents a store
+     * relative to the player.
+     * @param seeds An integer that represents the seeds in the store.
+     * @param player An integer, either 1 or 2 that represents a player.
+     * @return An integer from 0 to 2m that represents the last piece sown.
+     */
+    public int landing(int move, int seeds, int player) {
+        int last = (player == 2 ? stores - 1 - move : move) + seeds;
+        while (last >= lap)
+            last -= lap;
+        return last;
+    }
+
+    /**
+     * This method is responsible for checking if the game is over. It
+     * checks both sides of the board to see if either side has no seeds.
+     * @return A boolean object that represents if the game is over
+     */
+    public boolean isGameOver() {
+        return side(1) == 0 || side(2) == 0;
+    }
+
+    /**
+     * @param player An integer, either 1 or 2 that represents a player.
+     * @return The number of seeds in the player's stores.
+     */
+    public int side(int player) {
+        byte[] pits = this.pits;
+        int first = player == 1 ? 0 : stores + 1;
+        // a constant bound lets the standard board be unrolled
+        if (stores == STORES)
+            return pits[first] + pits[first + 1] + pits[first + 2] + pits[first + 3]
+                    + pits[first + 4] + pits[first + 5];
+        int count = 0;
+        for (int i = first; i < first + stores; i++)
+            count += pits[i];
+        return count;
+    }
+
+    /**
+     * This method moves the seeds left in every store into the house of
+     * the store's owner.
+     */
+    public void clear() {
+        int second = stores + 1;
+        for (int i = 0; i < stores; i++) {
+            pits[stores] += pits[i];
+            pits[i] = 0;
+            pits[pieces - 1] += pits[second + i];
+            pits[second + i] = 0;
+        }
+    }
+
+    /**
+     * @return The number of stores on each side of the board.
+     */
+    public int getStores() {
+        return stores;
+    }
+
+    /**
+     * @return The number of pieces (stores and houses) on the board.
+     */
+    public int getPieces() {
+        return pieces;
+    }
+
+    /**
+     * @return The number of seeds on the board.
+     */
+    public int seeds() {
+        int count = 0;
+        for (int i = 0; i < pieces; i++)
+            count += pits[i];
+        return count;
+    }
+
+    /**
+     * This method converts a store relative to a player into an index of
+     * this board.
+     * @param move An integer from 0 to m - 1 that represents a store.
+     * @param player An integer, either 1 or 2 that represents a player.
+     * @return An integer that represents the piece of the board.
+     */
+    public int pieceOf(int move, int player) {
+        if (player == 2)
+            return 2 * stores - move;
+        return move;
+    }
+
+    /**
+     * @param piece An integer that represents a store of this board.
+     * @return An integer that represents the store across from it.
+     */
+    public int acrossOf(int piece) {
+        return 2 * stores - piece;
+    }
+
+    /**
+     * @param player An integer, either 1 or 2 that represents a player.
+     * @return The index of the player's house on this board.
+     */
+    public int houseOf(int player) {
+        return player == 1 ? stores : pieces - 1;
+    }
+
+    /**
+     * @param piece An integer that represents a piece of this board.
+     * @return An integer representing the player that owns the piece.
+     */
+    public int ownerOf(int piece) {
+        return piece <= stores ? 1 : 2;
+    }
+
+    /**
+     * This method converts a store relative to a player into an index of
+     * the standard board.
+     * @param move An integer from 0 to 5 that represents a store.
+     * @param player An integer, either 1 or 2 that represents a player.
+     * @return An integer that represents the piece of the board.
+     */
+    public static int piece(int move, int player) {
+        if (player == 2)
+            return across(move);
+        return move;
+    }
+
+    /**
+     * This method calculates the piece across from the one selected.
+     * across = piece + ((6 - piece) * 2)
+     * @param piece A integer that represents the a piece of the board
+     * @return An integer that represent the piece across from the one provided.
+     */
+    public static int across(int piece) {
+        return 12 - piece;
+    }
+
+    /**
+     * @param player An integer, either 1 or 2 that represents a player.
+     * @return The index of the player's house.
+     */
+    public static int houseIndex(int player) {
+        return player * 7 - 1;
+    }
+
+    /**
+     * @param piece An integer that represents a piece of the board.
+     * @return An integer representing the player that owns the piece.
+     */
+    public static int owner(int piece) {
+        return piece < 7 ? 1 : 2;
+    }
+
+    /**
+     * @param other An object to compare with.
+     * @return true if the other object is a position of the same board
+     * with the same seeds in every piece and the same player to move.
+     */
+    public boolean equals(Object other) {
+        if (!(other instanceof Position))
+            return false;
+        Position position = (Position) other;
+        return turn == position.turn && Arrays.equals(pits, position.pits);
+    }
+
+    public int hashCode() {
+        return (int) hash();
+    }
+
+    /**
+     * This method draws the board with player 2's stores along the top,
+     * from its first store on the left, and player 1's along the bottom,
+     * each player's house on its right.
+     * @return A string that holds the lines of the board.
+     */
+    public String format() {
+        StringBuilder line = new StringBuilder("+------");
+        StringBuilder top = new StringBuilder("|      ");
+        StringBuilder middle = new StringBuilder(String.format("|  %02d  ", pits[houseOf(2)]));
+        StringBuilder bottom = new StringBuilder("|      ");
+        for (int move = 0; move < stores; move++) {
+            line.append("+------");
+            top.append(String.format("|  %02d  ", pits[pieceOf(move, 2)]));
+            middle.append(move == 0 ? "|------" : "+------");
+            bottom.append(String.format("|  %02d  ", pits[pieceOf(move, 1)]));
+        }
+        line.append("+------+\n");
+        top.append("|      |\n");
+        middle.append(String.format("|  %02d  |\n", pits[houseOf(1)]));
+        bottom.append("|      |\n");
+        return line.toString() + top + middle + bottom + line;
+    }
+
+    /**
+     * @return The seeds of every piece followed by the player to move.
+     */
+    public String toString() {
+        StringBuilder text = new StringBuilder("[");
+        for (int i = 0; i < pieces; i++) {
+            if (i > 0)
+                text.append(i == stores + 1 ? " | " : ",");
+            text.append(pits[i]);
+        }
+        return text.append("] turn ").append(turn).toString();
+    }
+}
@@ -0,0 +1,87 @@
+package algorithm;
+
+/**
+ * This class numbers the positions of the kalah game by the seeds in their
+ * stores. The stores are read starting with the first store of the player
+ * to move, and the rank of their seed counts among all ways to spread the
+ * same number of seeds over twelve stores is added to the number of
+ * positions with fewer seeds. The houses are not part of the number, and a
+ * position and its mirror with the other player to move share a number.
+ */
+public class PositionIndex {
+
+    /**
+     * The number of stores the seeds are spread over.
+     */
+    private static final int PITS = 2 * Position.STORES;
+
+    private final int maxSeeds;
+    /**
+     * The binomial coefficients C(n, m) for m up to the number of stores.
+     */
+    private final long[][] binomial;
+
+    /**
+     * @param maxSeeds An integer that represents the most seeds in play a
+     * numbered position can have.
+     */
+    public PositionIndex(int maxSeeds) {
+        this.maxSeeds = maxSeeds;
+        this.binomial = new long[maxSeeds + PITS + 1][PITS + 1];
+        for (int n = 0; n < binomial.length; n++) {
+            binomial[n][0] = 1;
+            for (int m = 1; m <= Math.min(n, PITS); m++)
+                binomial[n][m] = binomial[n - 1][m - 1] + (m <= n - 1 ? binomial[n - 1][m] : 0);
+        }
+    }
+
+    /**
+     * @param seeds An integer that represents the seeds in play.
+     * @return The number of the first position with the given seeds, which
+     * is the number of positions with fewer seeds.
+     */
+    public long offset(int seeds) {
+        return seeds == 0 ? 0 : binomial[seeds + PITS - 1][PITS];
+    }
+
+    /**
+     * @return The number of positions with up to the maximum seeds.
+     */
+    public long size() {
+        return offset(maxSeeds + 1);
+    }
+
+    public int getMaxSeeds() {
+        return maxSeeds;
+    }
+
+    /**
+     * @param position A position that is not over.
+     * @return The number of the position.
+     */
+    public long index(Position position) {
+        return index(position, position.side(1) + position.side(2));
+    }
+
+    /**
+     * @param position A position that is not over.
+     * @param seeds An integer that represents the seeds in play.
+     * @return The number of the position.
+     */
+    public long index(Position position, int seeds) {
+        int first = position.getTurn() == 1 ? 0 : 7;
+        long rank = offset(seeds);
+        int left = seeds;
+        for (int i = 0; i < PITS - 1; i++) {
+            // skip the house between the two sides
+            int piece = first + (i < Position.STORES ? i : i + 1);
+            if (piece >= Position.PIECES)
+                piece -= Position.PIECES;
+            int count = position.get(piece);
+            int parts = PITS - 1 - i;
+            rank += binomial[left + parts][parts] - binomial[left - count + parts][parts];
+            left -= count;
+        }
+        return rank;
+    }
+}
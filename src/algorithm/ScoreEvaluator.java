@@ -0,0 +1,13 @@
+package algorithm;
+
+/**
+ * This class represents the simplest evaluation of a position: the
+ * difference between the seeds in the players house and the seeds in the
+ * opponents house.
+ */
+public class ScoreEvaluator implements Evaluator {
+
+    public int evaluate(Position position, int player) {
+        return position.score(player);
+    }
+}
@@ -0,0 +1,530 @@
+package algorithm;
+
+import java.util.Arrays;
+
+/**
+ * This class represents a negamax search with alpha-beta pruning over
+ * positions of the kalah game. When a move ends in the players own house
+ * the same player moves again, so the child is searched with the same
+ * window and its score is not negated. Positions at the end of the depth
+ * are scored by a pluggable evaluator. A search can either run to a fixed
+ * depth or deepen iteratively until a time budget expires. When a
+ * transposition table is set, positions reached by different move orders
+ * are searched once. Moves are searched in the order given by a
+ * {@link MoveOrder}: the best move stored in the table, extra turns,
+ * captures, killer moves and then the history of cutoffs.
+ * <p>
+ * The whole tree is searched on a single board: each move is made on it
+ * and unmade once its subtree is searched, so no position is copied below
+ * the root.
+ * <p>
+ * Every search keeps count of its effort, which {@link #getStats()} hands
+ * out as a {@link SearchStats} once the search is over.
+ */
+public class Search {
+
+    /**
+     * The score of a won game before the winning margin is added.
+     */
+    public static final int WIN = 10000;
+    /**
+     * A score greater than any score the search can return.
+     */
+    public static final int INFINITY = 1000000;
+    /**
+     * The deepest iteration a timed search will attempt.
+     */
+    public static final int MAX_DEPTH = 64;
+
+    /**
+     * The evaluator used to score positions at the end of the depth.
+     */
+    private Evaluator evaluator;
+    /**
+     * An integer that represents the number of moves searched ahead.
+     */
+    private int depth;
+    /**
+     * The transposition table shared by every iteration, or null.
+     */
+    private TranspositionTable table;
+    /**
+     * The endgame database probed for positions with few seeds left, or
+     * null.
+     */
+    private EndgameDatabase endgame;
+    /**
+     * The perfect-play database written by the solver, or null.
+     */
+    private SolutionDatabase solution;
+    /**
+     * The board the search makes and unmakes its moves on.
+     */
+    private final Position board;
+    /**
+     * The order moves are searched in, kept between searches.
+     */
+    private final MoveOrder order;
+
+    /**
+     * An integer that represents the total number of seeds in the game,
+     * used to detect houses that already hold a winning majority.
+     */
+    private int total;
+
+    private int bestMove;
+    private int bestScore;
+    private long nodes;
+
+    /**
+     * The transposition table probes, the probes that found the position
+     * and the positions whose search was cut short, in the last search.
+     */
+    private long tableProbes;
+    private long tableHits;
+    private long cutoffs;
+    /**
+     * The System.nanoTime() at which the last search began, and its length
+     * once it is over.
+     */
+    private long began;
+    private long elapsed;
+    /**
+     * The depth, positions and time of each iteration the last search
+     * completed.
+     */
+    private int iterations;
+    private final int[] iterationDepths = new int[MAX_DEPTH];
+    private final long[] iterationNodes = new long[MAX_DEPTH];
+    private final long[] iterationNanos = new long[MAX_DEPTH];
+
+    /**
+     * The best move of the iteration in progress.
+     */
+    private int rootMove;
+    /**
+     * An integer that represents the depth of the last completed iteration.
+     */
+    private int depthReached;
+    /**
+     * True if the iteration in progress evaluated a position at the end of
+     * its depth. If it did not, the iteration saw every line to the end of
+     * the game and deeper iterations cannot change the result.
+     */
+    private boolean horizon;
+    /**
+     * The System.nanoTime() at which a timed search must stop, or 0 if the
+     * search has no time limit.
+     */
+    private long deadline;
+    /**
+     * True once the deadline has passed and the iteration in progress must
+     * be abandoned.
+     */
+    private boolean stopped;
+    /**
+     * True once another thread has asked the search to stop. It is only
+     * cleared by {@link #resetStop()}.
+     */
+    private volatile boolean stopRequested;
+    /**
+     * True if the search is a helper of a parallel search, which ages the
+     * shared transposition table itself.
+     */
+    boolean helper;
+
+    public Search(Evaluator evaluator, int depth) {
+        this.evaluator = evaluator;
+        this.board = new Position();
+        this.order = new MoveOrder();
+        setDepth(depth);
+    }
+
+    /**
+     * This method searches the position to the configured depth and returns
+     * the best move for the player to move.
+     * @param position The position to search. It is not modified.
+     * @return An integer from 0 to 5 that represents the best store
+     * relative to the player to move, or -1 if the game is over.
+     */
+    public int search(Position position) {
+        start(position, 0);
+        if (position.getTurn() != 0)
+            iterate(depth);
+        elapsed = System.nanoTime() - began;
+        return bestMove;
+    }
+
+    /**
+     * This method searches the position with iterative deepening. It
+     * searches to depth 1, 2, 3 and so on until the time budget expires
+     * and returns the best move of the deepest completed iteration. The
+     * first iteration always completes so a move is returned even if the
+     * budget is very small.
+     * @param position The position to search. It is not modified.
+     * @param millis A long that represents the time budget in milliseconds.
+     * @return An integer from 0 to 5 that represents the best store
+     * relative to the player to move, or -1 if the game is over.
+     */
+    public int search(Position position, long millis) {
+        start(position, System.nanoTime() + millis * 1000000L);
+        if (position.getTurn() != 0) {
+            for (int d = 1; d <= MAX_DEPTH; d++) {
+                // the deadline passed or every line reached the end of the game
+                if (!iterate(d) || !horizon || System.nanoTime() >= deadline)
+                    break;
+            }
+        }
+        elapsed = System.nanoTime() - began;
+        return bestMove;
+    }
+
+    /**
+     * This method resets the search state for a new search of the position.
+     * @param position The position to search.
+     * @param deadline The System.nanoTime() at which to stop, or 0.
+     */
+    private void start(Position position, long deadline) {
+        this.began = System.nanoTime();
+        this.nodes = 0;
+        this.tableProbes = 0;
+        this.tableHits = 0;
+        this.cutoffs = 0;
+        this.iterations = 0;
+        this.bestMove = -1;
+        this.bestScore = -INFINITY;
+        this.depthReached = 0;
+        this.deadline = deadline;
+        this.stopped = false;
+        if (table != null && !helper)
+            table.newSearch();
+        order.newSearch();
+
+        total = position.seeds();
+
+        board.copyFrom(position);
+    }
+
+    /**
+     * This method searches the root position to the given depth.
+     * @param depth An integer that represents the depth of the iteration.
+     * @return true if the iteration completed, false if it was stopped by
+     * the deadline.
+     */
+    private boolean iterate(int depth) {
+        order.ensure(depth + 1);
+        horizon = false;
+        rootMove = -1;
+        long time = System.nanoTime();
+        long before = nodes;
+
+        int score = negamax(0, depth, -INFINITY, INFINITY);
+        if (stopped)
+            return false;
+
+        bestMove = rootMove;
+        bestScore = score;
+        depthReached = depth;
+        if (iterations < MAX_DEPTH) {
+            iterationDepths[iterations] = depth;
+            iterationNodes[iterations] = nodes - before;
+            iterationNanos[iterations] = System.nanoTime() - time;
+            iterations++;
+        }
+        if (Trace.ENABLED && Trace.isOn(Trace.INFO))
+            Trace.log(Trace.INFO, "depth " + depth + " move " + bestMove + " score " + score
+                    + " nodes " + nodes);
+        return true;
+    }
+
+    /**
+     * This method is responsible for searching the board, which holds the
+     * position at the given ply.
+     * @param ply An integer that represents the distance from the root.
+     * @param depth An integer that represents the moves left to search.
+     * @param alpha The score the player to move is already assured of.
+     * @param beta The score the opponent is already assured of.
+     * @return The score of the position for the player to move.
+     */
+    private int negamax(int ply, int depth, int alpha, int beta) {
+        Position position = board;
+        int player = position.getTurn();
+        nodes++;
+
+        // check the clock, but never abandon the first iteration
+        if ((nodes & 1023) == 0) {
+            if (stopRequested || (deadline != 0 && depthReached > 0
+                    && System.nanoTime() >= deadline))
+                stopped = true;
+        }
+        if (stopped)
+            return 0;
+
+        if (Trace.ENABLED && Trace.sample(Trace.NODE))
+            Trace.log(Trace.NODE, "ply " + ply + " depth " + depth + " window " + alpha
+                    + " " + beta + " " + position);
+
+        // positions in the endgame database are solved exactly
+        if (endgame != null && ply > 0) {
+            int value = endgame.probe(position);
+            if (value != EndgameDatabase.NO_VALUE)
+                return outcome(position.score(player) + value);
+        }
+        if (solution != null && ply > 0) {
+            int value = solution.probe(position);
+            if (value != EndgameDatabase.NO_VALUE)
+                return outcome(position.score(player) + value);
+        }
+
+        if (depth == 0) {
+            horizon = true;
+            return evaluator.evaluate(position, player);
+        }
+
+        long hash = 0;
+        int tableMove = -1;
+        if (table != null) {
+            hash = position.hash();
+            long entry = table.probe(hash);
+            tableProbes++;
+            if (entry != 0) {
+                tableHits++;
+                tableMove = TranspositionTable.move(entry);
+                int tableDepth = TranspositionTable.depth(entry);
+                int bound = TranspositionTable.bound(entry);
+                int score = TranspositionTable.score(entry);
+                if (ply > 0 && tableDepth >= depth
+                        && (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha))) {
+                    if (tableDepth != TranspositionTable.MAX_DEPTH)
+                        horizon = true;
+                    return score;
+                }
+            }
+        }
+
+        // track the horizon of this subtree alone
+        boolean outer = horizon;
+        horizon = false;
+
+        int alphaOrig = alpha;
+        int best = -INFINITY;
+        int bestHere = -1;
+        int count = order.order(position, ply, tableMove);
+        int[] moves = order.moves(ply);
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int undo = position.make(move);
+            int turn = position.getTurn();
+
+            int score;
+            if (turn == 0)
+                score = finalScore(position, player);
+            else if (position.house(player) * 2 > total)
+                score = WIN + position.score(player);
+            else if (position.house(3 - player) * 2 > total)
+                score = -WIN + position.score(player);
+            else if (turn == player)
+                score = negamax(ply + 1, depth - 1, alpha, beta);
+            else
+                score = -negamax(ply + 1, depth - 1, -beta, -alpha);
+            position.unmake(undo);
+
+            if (stopped)
+                return 0;
+
+            if (score > best) {
+                best = score;
+                bestHere = move;
+                if (ply == 0)
+                    rootMove = move;
+            }
+            if (best > alpha)
+                alpha = best;
+            if (alpha >= beta) {
+                cutoffs++;
+                order.cutoff(ply, player, move, depth);
+                break;
+            }
+        }
+
+        boolean subtree = horizon;
+        horizon = outer || subtree;
+
+        if (table != null) {
+            int bound;
+            if (best <= alphaOrig)
+                bound = TranspositionTable.UPPER;
+            else if (best >= beta)
+                bound = TranspositionTable.LOWER;
+            else
+                bound = TranspositionTable.EXACT;
+            // a subtree searched to the end of every line is valid at any depth
+            table.store(hash, subtree ? depth : TranspositionTable.MAX_DEPTH,
+                    bound, best, bestHere);
+        }
+        return best;
+    }
+
+    /**
+     * @param position A position where the game is over, with or without
+     * the seeds left in the stores swept into the houses.
+     * @param player An integer, either 1 or 2 that represents a player.
+     * @return The score of the finished game for the player.
+     */
+    public static int finalScore(Position position, int player) {
+        return outcome(position.result(player));
+    }
+
+    /**
+     * @param diff An integer that represents the final difference between
+     * the houses for a player.
+     * @return The score of a game that ends with the difference.
+     */
+    public static int outcome(int diff) {
+        if (diff > 0)
+            return WIN + diff;
+        else if (diff < 0)
+            return -WIN + diff;
+        return 0;
+    }
+
+    /**
+     * This method asks a search running on another thread to stop. The
+     * iteration in progress is abandoned and the search returns the result
+     * of the last completed iteration.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * This method clears a stop request so the search can be run again.
+     */
+    public void resetStop() {
+        stopRequested = false;
+    }
+
+    /**
+     * This method copies the evaluator, table and depth of another search
+     * without clearing the table.
+     * @param other The search to copy the settings of.
+     */
+    void configure(Search other) {
+        this.evaluator = other.evaluator;
+        this.table = other.table;
+        this.endgame = other.endgame;
+        this.solution = other.solution;
+        setDepth(other.depth);
+    }
+
+    public Evaluator getEvaluator() {
+        return evaluator;
+    }
+
+    public void setEvaluator(Evaluator evaluator) {
+        this.evaluator = evaluator;
+        // stored scores came from the old evaluator
+        if (table != null)
+            table.clear();
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * @param table The transposition table to use, or null to search
+     * without one.
+     */
+    public void setTable(TranspositionTable table) {
+        this.table = table;
+    }
+
+    public EndgameDatabase getEndgame() {
+        return endgame;
+    }
+
+    /**
+     * @param endgame The endgame database to probe, or null to search
+     * without one.
+     */
+    public void setEndgame(EndgameDatabase endgame) {
+        this.endgame = endgame;
+    }
+
+    public SolutionDatabase getSolution() {
+        return solution;
+    }
+
+    /**
+     * @param solution The perfect-play database to probe, or null to search
+     * without one.
+     */
+    public void setSolution(SolutionDatabase solution) {
+        this.solution = solution;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * This method sets the depth of the search and grows the move order
+     * to hold it.
+     * @param depth An integer greater than 0 that represents the number of
+     * moves searched ahead.
+     */
+    public void setDepth(int depth) {
+        if (depth < 1)
+            throw new IllegalArgumentException("depth must be at least 1: " + depth);
+        this.depth = depth;
+        order.ensure(depth + 1);
+    }
+
+    /**
+     * @return The score of the best move found by the last search.
+     */
+    public int getScore() {
+        return bestScore;
+    }
+
+    /**
+     * @return The depth of the deepest iteration the last search completed.
+     */
+    public int getDepthReached() {
+        return depthReached;
+    }
+
+    /**
+     * @return The number of positions visited by the last search.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    public MoveOrder getMoveOrder() {
+        return order;
+    }
+
+    /**
+     * @return The statistics of the last search.
+     */
+    public SearchStats getStats() {
+        return getStats(nodes);
+    }
+
+    /**
+     * @param nodes A long that represents the positions visited, which a
+     * parallel search counts over all of its threads.
+     * @return The statistics of the last search.
+     */
+    SearchStats getStats(long nodes) {
+        return new SearchStats(SearchStats.SEARCH, bestMove, bestScore, depthReached, nodes,
+                elapsed, tableProbes, tableHits, cutoffs,
+                Arrays.copyOf(iterationDepths, iterations),
+                Arrays.copyOf(iterationNodes, iterations),
+                Arrays.copyOf(iterationNanos, iterations));
+    }
+}
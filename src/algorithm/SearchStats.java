@@ -0,0 +1,246 @@
+package algorithm;
+
+import java.util.Locale;
+
+/**
+ * This class represents the statistics of how a single move was chosen:
+ * the positions visited and how fast, the depth reached, how often the
+ * transposition table held the position and how often a move cut the
+ * search short, with the time and positions of each iteration. Moves taken
+ * from the opening book or the perfect-play database are recorded with
+ * their source and no search effort.
+ * <p>
+ * The statistics are a snapshot taken when the search finishes and are
+ * never changed, so they can be kept or logged from another thread.
+ */
+public class SearchStats {
+
+    public static final String SEARCH = "search";
+    public static final String BOOK = "book";
+    public static final String SOLUTION = "solution";
+    /**
+     * The source of moves chosen by {@link MonteCarloSearch}. Its nodes
+     * are playouts, its depth is the deepest line of the tree and its
+     * score is the winning chance of the move in percent.
+     */
+    public static final String MONTE_CARLO = "mcts";
+    /**
+     * The source of moves searched on the opponent's time by
+     * {@link Ponderer} and played at once. The effort and time are those
+     * of the pondering search.
+     */
+    public static final String PONDER = "ponder";
+
+    private final String source;
+    private final int move;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long nanos;
+    private final long tableProbes;
+    private final long tableHits;
+    private final long cutoffs;
+    /**
+     * The depth, positions and time of each completed iteration.
+     */
+    private final int[] iterationDepths;
+    private final long[] iterationNodes;
+    private final long[] iterationNanos;
+
+    SearchStats(String source, int move, int score, int depth, long nodes, long nanos,
+                long tableProbes, long tableHits, long cutoffs, int[] iterationDepths,
+                long[] iterationNodes, long[] iterationNanos) {
+        this.source = source;
+        this.move = move;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.nanos = nanos;
+        this.tableProbes = tableProbes;
+        this.tableHits = tableHits;
+        this.cutoffs = cutoffs;
+        this.iterationDepths = iterationDepths;
+        this.iterationNodes = iterationNodes;
+        this.iterationNanos = iterationNanos;
+    }
+
+    /**
+     * This method records a move that was looked up instead of searched.
+     * @param source The database the move came from, BOOK or SOLUTION.
+     * @param move An integer from 0 to 5 that represents the store found.
+     * @param nanos A long that represents the time of the lookup in
+     * nanoseconds.
+     * @return The statistics of the lookup.
+     */
+    public static SearchStats lookup(String source, int move, long nanos) {
+        return new SearchStats(source, move, 0, 0, 0, nanos, 0, 0, 0, new int[0], new long[0],
+                new long[0]);
+    }
+
+    /**
+     * @param source The source to record the move with.
+     * @return The same statistics with another source.
+     */
+    SearchStats withSource(String source) {
+        return new SearchStats(source, move, score, depth, nodes, nanos, tableProbes, tableHits,
+                cutoffs, iterationDepths, iterationNodes, iterationNanos);
+    }
+
+    /**
+     * @return The source of the move: SEARCH, MONTE_CARLO, PONDER, BOOK or
+     * SOLUTION.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * @return An integer from 0 to 5 that represents the store chosen, or
+     * -1 if the game was over.
+     */
+    public int getMove() {
+        return move;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return The depth of the deepest completed iteration.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return The number of positions visited, by every thread of the
+     * search.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public double getMillis() {
+        return nanos / 1e6;
+    }
+
+    public double getNodesPerSecond() {
+        return nanos == 0 ? 0 : nodes * 1e9 / nanos;
+    }
+
+    public long getTableProbes() {
+        return tableProbes;
+    }
+
+    public long getTableHits() {
+        return tableHits;
+    }
+
+    /**
+     * @return The share of transposition table probes that found the
+     * position, from 0 to 1.
+     */
+    public double getTableHitRate() {
+        return tableProbes == 0 ? 0 : (double) tableHits / tableProbes;
+    }
+
+    /**
+     * @return The number of positions where a move failed high and the
+     * remaining moves were skipped.
+     */
+    public long getCutoffs() {
+        return cutoffs;
+    }
+
+    /**
+     * This method estimates the effective branching factor: the growth in
+     * positions from the second to last iteration to the last one, or for
+     * a single iteration the root of its positions by its depth.
+     * @return A double that represents the branching factor, or 0 if
+     * nothing was searched.
+     */
+    public double getBranchingFactor() {
+        int count = iterationNodes.length;
+        if (count >= 2 && iterationNodes[count - 2] > 0)
+            return (double) iterationNodes[count - 1] / iterationNodes[count - 2];
+        if (count == 1 && iterationDepths[0] > 0)
+            return Math.pow(iterationNodes[0], 1.0 / iterationDepths[0]);
+        return 0;
+    }
+
+    /**
+     * @return The number of completed iterations.
+     */
+    public int getIterations() {
+        return iterationDepths.length;
+    }
+
+    /**
+     * @param iteration An integer that represents a completed iteration,
+     * from 0.
+     * @return The depth the iteration searched to.
+     */
+    public int getIterationDepth(int iteration) {
+        return iterationDepths[iteration];
+    }
+
+    /**
+     * @param iteration An integer that represents a completed iteration,
+     * from 0.
+     * @return The number of positions the iteration visited.
+     */
+    public long getIterationNodes(int iteration) {
+        return iterationNodes[iteration];
+    }
+
+    /**
+     * @param iteration An integer that represents a completed iteration,
+     * from 0.
+     * @return The time of the iteration in nanoseconds.
+     */
+    public long getIterationNanos(int iteration) {
+        return iterationNanos[iteration];
+    }
+
+    /**
+     * This method writes the statistics as a single line of JSON. The
+     * store is numbered from 1 to 6 like the moves of kalah.Move.
+     * @return A string that holds one JSON object.
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"source\":\"").append(source).append('"')
+                .append(",\"store\":").append(move + 1)
+                .append(",\"score\":").append(score)
+                .append(",\"depth\":").append(depth)
+                .append(",\"nodes\":").append(nodes)
+                .append(",\"ms\":").append(format(getMillis()))
+                .append(",\"nps\":").append(Math.round(getNodesPerSecond()))
+                .append(",\"tableProbes\":").append(tableProbes)
+                .append(",\"tableHitRate\":").append(format(getTableHitRate()))
+                .append(",\"cutoffs\":").append(cutoffs)
+                .append(",\"branchingFactor\":").append(format(getBranchingFactor()))
+                .append(",\"iterations\":[");
+        for (int i = 0; i < iterationDepths.length; i++) {
+            if (i > 0)
+                json.append(',');
+            json.append("{\"depth\":").append(iterationDepths[i])
+                    .append(",\"nodes\":").append(iterationNodes[i])
+                    .append(",\"ms\":").append(format(iterationNanos[i] / 1e6)).append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    public String toString() {
+        return toJson();
+    }
+}
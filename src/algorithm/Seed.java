@@ -1,24 +0,0 @@
-package algorithm;
-
-/**
- * This class represents a seed in kalah. A seed is the items that
- * are passed from stores. The seeds that reside in a players home
- * are counted as the players scores.
- */
-public class Seed {
-
-	/**
-	 * An integer that represents the id of the seed in a game
-	 */
-	private int id;
-
-	/**
-	 * The default constructor for class Seed. It sets the Id of the seed to
-	 * the id given in the parameter.
-	 * @param id An integer that represents the id of the seed in the game
-	 */
-	public Seed(int id) {
-		this.id = id;
-	}
-
-}
\ No newline at end of file
@@ -0,0 +1,217 @@
+package algorithm;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * This class represents the perfect-play database written by the
+ * {@link GameSolver}. It holds the exact result of perfect play for every
+ * position the solver proved exactly: the seeds the player to move gains
+ * over the opponent from the stores until the game is over. Each entry is
+ * a long that packs the {@link PositionIndex} of the position with its
+ * value, and the entries are sorted by index so a position is looked up
+ * with a binary search. The file is read back through a memory-mapped
+ * buffer.
+ */
+public class SolutionDatabase {
+
+    private static final int MAGIC = 0x4B534F4C;
+    private static final int VERSION = 1;
+    private static final int HEADER = 16;
+    /**
+     * The offset added to a value so it fits in an unsigned byte.
+     */
+    private static final int BIAS = 128;
+    /**
+     * The number of entries in each mapped chunk of the file.
+     */
+    private static final int CHUNK = 1 << 27;
+
+    private final int maxSeeds;
+    private final PositionIndex index;
+    /**
+     * The entries of the database, sorted by index, in chunks.
+     */
+    private final LongBuffer[] entries;
+    private final long size;
+
+    private SolutionDatabase(int maxSeeds, LongBuffer[] entries, long size) {
+        this.maxSeeds = maxSeeds;
+        this.index = new PositionIndex(maxSeeds);
+        this.entries = entries;
+        this.size = size;
+    }
+
+    /**
+     * This method collects every exact entry of a solution table.
+     * @param table The table filled by the solver.
+     * @param maxSeeds An integer that represents the seeds in play in the
+     * solved game.
+     * @return The database held in memory.
+     */
+    public static SolutionDatabase build(SolutionTable table, int maxSeeds) {
+        long count = 0;
+        for (long slot = 0; slot < table.capacity(); slot++) {
+            long entry = table.get(slot);
+            if (entry != 0 && SolutionTable.lower(entry) == SolutionTable.upper(entry))
+                count++;
+        }
+        if (count > Integer.MAX_VALUE - 8)
+            throw new IllegalStateException(count + " solved positions do not fit in memory");
+
+        long[] packed = new long[(int) count];
+        int i = 0;
+        for (long slot = 0; slot < table.capacity(); slot++) {
+            long entry = table.get(slot);
+            if (entry != 0 && SolutionTable.lower(entry) == SolutionTable.upper(entry))
+                packed[i++] = pack(SolutionTable.key(entry), SolutionTable.lower(entry));
+        }
+        Arrays.sort(packed);
+        LongBuffer[] entries = new LongBuffer[(int) ((count + CHUNK - 1) / CHUNK)];
+        for (int j = 0; j < entries.length; j++) {
+            int first = j * CHUNK;
+            entries[j] = LongBuffer.wrap(packed, first, Math.min(CHUNK, packed.length - first)).slice();
+        }
+        return new SolutionDatabase(maxSeeds, entries, count);
+    }
+
+    /**
+     * This method opens a database file by mapping it into memory.
+     * @param file The file written by {@link #write(File)}.
+     * @return The database backed by the file.
+     * @throws IOException if the file cannot be read or is not a database.
+     */
+    public static SolutionDatabase open(File file) throws IOException {
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                throw new IOException(file + " is not a solution database");
+            int maxSeeds = in.readInt();
+            in.readInt();
+            long size = (in.length() - HEADER) / 8;
+            if (in.length() != HEADER + size * 8)
+                throw new IOException(file + " is truncated");
+            LongBuffer[] entries = new LongBuffer[(int) ((size + CHUNK - 1) / CHUNK)];
+            for (int i = 0; i < entries.length; i++) {
+                long first = (long) i * CHUNK;
+                entries[i] = in.getChannel().map(FileChannel.MapMode.READ_ONLY,
+                        HEADER + first * 8, Math.min(CHUNK, size - first) * 8).asLongBuffer();
+            }
+            return new SolutionDatabase(maxSeeds, entries, size);
+        } finally {
+            // the mapping stays valid after the file is closed
+            in.close();
+        }
+    }
+
+    /**
+     * This method writes the database to a file.
+     * @param file The file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(File file) throws IOException {
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(maxSeeds);
+            out.writeInt(0);
+            for (long i = 0; i < size; i++)
+                out.writeLong(get(i));
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * This method looks up the result of perfect play from a position.
+     * @param position The position to look up.
+     * @return The seeds the player to move gains over the opponent from
+     * the stores until the game is over, or NO_VALUE if the game is over
+     * or the position was not solved exactly.
+     */
+    public int probe(Position position) {
+        if (position.getTurn() == 0 || position.getStores() != Position.STORES)
+            return EndgameDatabase.NO_VALUE;
+        int seeds = position.side(1) + position.side(2);
+        if (seeds > maxSeeds)
+            return EndgameDatabase.NO_VALUE;
+        long key = index.index(position, seeds);
+        long low = 0;
+        long high = size - 1;
+        while (low <= high) {
+            long middle = (low + high) >>> 1;
+            long entry = get(middle);
+            long found = entry >>> 8;
+            if (found < key)
+                low = middle + 1;
+            else if (found > key)
+                high = middle - 1;
+            else
+                return (int) (entry & 0xFF) - BIAS;
+        }
+        return EndgameDatabase.NO_VALUE;
+    }
+
+    /**
+     * This method finds a perfect move from a position by looking up its
+     * children.
+     * @param position The position to play from.
+     * @param endgame The endgame database for the children with few seeds
+     * left, or null.
+     * @return An integer from 0 to 5 that represents the best move, or -1
+     * if one of the children is in neither database.
+     */
+    public int bestMove(Position position, EndgameDatabase endgame) {
+        int player = position.getTurn();
+        Position child = new Position();
+        int best = -Search.INFINITY;
+        int bestMove = -1;
+        for (int legal = position.legalMoves(); legal != 0; legal &= legal - 1) {
+            int move = Integer.numberOfTrailingZeros(legal);
+            child.copyFrom(position);
+            int turn = child.sow(move);
+            int value = child.score(player) - position.score(player);
+            if (turn != 0) {
+                int rest = probe(child);
+                if (rest == EndgameDatabase.NO_VALUE && endgame != null)
+                    rest = endgame.probe(child);
+                if (rest == EndgameDatabase.NO_VALUE)
+                    return -1;
+                value += turn == player ? rest : -rest;
+            }
+            if (value > best) {
+                best = value;
+                bestMove = move;
+            }
+        }
+        return bestMove;
+    }
+
+    public int getMaxSeeds() {
+        return maxSeeds;
+    }
+
+    /**
+     * @return The number of positions in the database.
+     */
+    public long size() {
+        return size;
+    }
+
+    private long get(long i) {
+        return entries[(int) (i / CHUNK)].get((int) (i % CHUNK));
+    }
+
+    private static long pack(long key, int value) {
+        return (key << 8) | (value + BIAS);
+    }
+}
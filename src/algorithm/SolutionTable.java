@@ -0,0 +1,241 @@
+package algorithm;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * This class represents a disk-backed hash table of solved positions used
+ * by the {@link GameSolver}. Every entry is a long that packs the
+ * {@link PositionIndex} of a position with a lower and an upper bound on
+ * the seeds the player to move gains until the game is over, the bounds
+ * being equal once the position is solved exactly.
+ * <p>
+ * The entries are held in memory in chunks, so the table can be larger
+ * than a single array, and are saved to a file at every checkpoint of the
+ * solver: a solver that is stopped can load the same file and carry on
+ * with every bound proven up to the last save. The file is written next to
+ * the old one and renamed over it, so a crash while saving never leaves a
+ * torn table. Collisions are resolved by probing the next few slots; when
+ * all of them hold other positions an entry with open bounds is replaced
+ * before a solved one.
+ */
+public class SolutionTable {
+
+    /**
+     * The number of slots examined for a position before one is replaced.
+     */
+    private static final int PROBES = 16;
+    /**
+     * The number of slots in each chunk of the table.
+     */
+    private static final int CHUNK_SLOTS = 1 << 24;
+    private static final int CHUNK_SHIFT = 24;
+    /**
+     * The offset added to a bound so it fits in an unsigned byte.
+     */
+    private static final int BIAS = 128;
+
+    private final File file;
+    private final long[][] chunks;
+    private final long capacity;
+    private final long mask;
+    private long entries;
+
+    /**
+     * This constructor loads a table file, or creates an empty table with
+     * the given number of slots if the file does not exist. An existing
+     * file keeps its own size and contents.
+     * @param file The file the table is loaded from and saved to.
+     * @param slots A long that represents the number of slots of a new
+     * table, rounded down to a power of two.
+     * @throws IOException if the file cannot be read.
+     */
+    public SolutionTable(File file, long slots) throws IOException {
+        this.file = file;
+        long length = file.exists() ? file.length()
+                : Long.highestOneBit(Math.max(slots, PROBES)) * 8;
+        if (Long.bitCount(length) != 1 || length < PROBES * 8)
+            throw new IOException(file + " is not a solution table");
+        this.capacity = length / 8;
+        this.mask = capacity - 1;
+        this.chunks = new long[(int) ((capacity + CHUNK_SLOTS - 1) >>> CHUNK_SHIFT)][];
+        for (int i = 0; i < chunks.length; i++)
+            chunks[i] = new long[(int) Math.min(CHUNK_SLOTS, capacity)];
+        if (file.exists())
+            load();
+    }
+
+    /**
+     * This method looks up the bounds of a position.
+     * @param key A long that represents the {@link PositionIndex} of the
+     * position.
+     * @return The packed entry, or 0 if the position is not in the table.
+     */
+    public long probe(long key) {
+        long tag = key + 1;
+        long slot = home(key);
+        for (int i = 0; i < PROBES; i++) {
+            long entry = get(slot);
+            if (entry == 0)
+                return 0;
+            if (entry >>> 16 == tag)
+                return entry;
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    /**
+     * This method narrows the bounds of a position to the given ones,
+     * keeping any tighter bounds already in the table.
+     * @param key A long that represents the {@link PositionIndex} of the
+     * position.
+     * @param lower An integer that represents the least the player to move
+     * gains.
+     * @param upper An integer that represents the most the player to move
+     * gains.
+     */
+    public void store(long key, int lower, int upper) {
+        long tag = key + 1;
+        long slot = home(key);
+        long victim = -1;
+        for (int i = 0; i < PROBES; i++) {
+            long entry = get(slot);
+            if (entry == 0) {
+                entries++;
+                put(slot, pack(tag, lower, upper));
+                return;
+            }
+            if (entry >>> 16 == tag) {
+                put(slot, pack(tag, Math.max(lower, lower(entry)), Math.min(upper, upper(entry))));
+                return;
+            }
+            if (victim < 0 && lower(entry) != upper(entry))
+                victim = slot;
+            slot = (slot + 1) & mask;
+        }
+        // every slot is taken, so give up an open entry before a solved one
+        if (victim < 0 && lower != upper)
+            return;
+        put(victim >= 0 ? victim : home(key), pack(tag, lower, upper));
+    }
+
+    /**
+     * This method saves every entry to the file of the table.
+     * @throws IOException if the file cannot be written.
+     */
+    public void save() throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        FileChannel channel = new FileOutputStream(temp).getChannel();
+        try {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+            LongBuffer longs = buffer.asLongBuffer();
+            for (long[] chunk : chunks) {
+                for (int i = 0; i < chunk.length; i += longs.capacity()) {
+                    int count = Math.min(longs.capacity(), chunk.length - i);
+                    longs.clear();
+                    longs.put(chunk, i, count);
+                    buffer.clear();
+                    buffer.limit(count * 8);
+                    while (buffer.hasRemaining())
+                        channel.write(buffer);
+                }
+            }
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+        if (!temp.renameTo(file))
+            throw new IOException("cannot replace " + file);
+    }
+
+    /**
+     * This method reads every entry from the file of the table.
+     */
+    private void load() throws IOException {
+        FileChannel channel = new FileInputStream(file).getChannel();
+        try {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+            LongBuffer longs = buffer.asLongBuffer();
+            for (long[] chunk : chunks) {
+                for (int i = 0; i < chunk.length; i += longs.capacity()) {
+                    int count = Math.min(longs.capacity(), chunk.length - i);
+                    buffer.clear();
+                    buffer.limit(count * 8);
+                    while (buffer.hasRemaining()) {
+                        if (channel.read(buffer) < 0)
+                            throw new IOException(file + " is truncated");
+                    }
+                    longs.clear();
+                    longs.get(chunk, i, count);
+                    for (int j = i; j < i + count; j++) {
+                        if (chunk[j] != 0)
+                            entries++;
+                    }
+                }
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * @param slot A long from 0 to the capacity of the table.
+     * @return The packed entry in the slot, or 0 if the slot is empty.
+     */
+    public long get(long slot) {
+        return chunks[(int) (slot >>> CHUNK_SHIFT)][(int) (slot & (CHUNK_SLOTS - 1))];
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return The number of slots that hold a position.
+     */
+    public long size() {
+        return entries;
+    }
+
+    /**
+     * @param entry A packed entry.
+     * @return The {@link PositionIndex} of the position in the entry.
+     */
+    public static long key(long entry) {
+        return (entry >>> 16) - 1;
+    }
+
+    /**
+     * @param entry A packed entry.
+     * @return The least the player to move gains.
+     */
+    public static int lower(long entry) {
+        return (int) ((entry >>> 8) & 0xFF) - BIAS;
+    }
+
+    /**
+     * @param entry A packed entry.
+     * @return The most the player to move gains.
+     */
+    public static int upper(long entry) {
+        return (int) (entry & 0xFF) - BIAS;
+    }
+
+    private void put(long slot, long entry) {
+        chunks[(int) (slot >>> CHUNK_SHIFT)][(int) (slot & (CHUNK_SLOTS - 1))] = entry;
+    }
+
+    private long home(long key) {
+        return (key * 0x9E3779B97F4A7C15L >>> 20) & mask;
+    }
+
+    private static long pack(long tag, int lower, int upper) {
+        return (tag << 16) | ((long) (lower + BIAS) << 8) | (upper + BIAS);
+    }
+}
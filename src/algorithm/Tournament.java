@@ -0,0 +1,544 @@
+package algorithm;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * This class represents a headless tournament between engine
+ * configurations. Every pair of engines plays each opening twice, once
+ * from each side, so neither engine profits from the first move. The
+ * openings are random moves from the start position drawn from a seeded
+ * generator, so a tournament can be repeated. The games run in parallel on
+ * a pool of threads with a fresh pair of players per game, and the
+ * results are kept in the order the games were scheduled.
+ * <p>
+ * The standings give every engine's wins, draws, losses and score, and an
+ * Elo rating fitted to all of the games with the Bradley-Terry model.
+ * <p>
+ * Usage: {@code java algorithm.Tournament <dir> <openings> <plies> <threads>
+ * [stores=m] [seeds=n] <engine>...}, where each engine is written as
+ * {@code name[:depth=n][:millis=n][:table=n][:weights=file][:mcts=n]}, with
+ * the weights read by {@link LinearEvaluator#load(File)} and {@code mcts}
+ * selecting a Monte Carlo tree search of n playouts a move. The games are
+ * played on the standard board of Kalah(6,3) unless the stores on each
+ * side or the seeds in each store are given. The games are
+ * written to {@code games.csv} and the standings to {@code standings.csv}
+ * in the given directory.
+ */
+public class Tournament {
+
+    private final List<Engine> engines;
+    private final int openings;
+    private final int plies;
+    private final long seed;
+    private final List<Result> results;
+    /**
+     * The position every opening starts from.
+     */
+    private Position start;
+
+    /**
+     * @param engines The engines that take part.
+     * @param openings An integer that represents the number of openings
+     * each pair of engines plays from each side.
+     * @param plies An integer that represents the number of random moves
+     * of an opening.
+     * @param seed A long that seeds the generator of the openings.
+     */
+    public Tournament(List<Engine> engines, int openings, int plies, long seed) {
+        if (engines.size() < 2)
+            throw new IllegalArgumentException("a tournament needs at least 2 engines");
+        this.engines = new ArrayList<Engine>(engines);
+        this.openings = openings;
+        this.plies = plies;
+        this.seed = seed;
+        this.results = new ArrayList<Result>();
+        this.start = new Position();
+    }
+
+    /**
+     * This method is responsible for playing every game of the tournament.
+     * @param threads An integer that represents the number of games played
+     * at once.
+     * @return The results of the games in the order they were scheduled.
+     */
+    public List<Result> play(int threads) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "kalah-tournament");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            Random random = new Random(seed);
+            List<Future<Result>> games = new ArrayList<Future<Result>>();
+            for (int opening = 0; opening < openings; opening++) {
+                Position start = opening(random, this.start, plies);
+                for (int a = 0; a < engines.size(); a++) {
+                    for (int b = a + 1; b < engines.size(); b++) {
+                        games.add(pool.submit(new Match(opening, start, a, b)));
+                        games.add(pool.submit(new Match(opening, start, b, a)));
+                    }
+                }
+            }
+
+            results.clear();
+            for (Future<Result> game : games)
+                results.add(game.get());
+            return results;
+        } catch (Exception e) {
+            throw new IllegalStateException("tournament game failed", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * This method plays random legal moves from the standard start
+     * position. An opening that ends the game is drawn again.
+     * @param random The generator the moves are drawn from.
+     * @param plies An integer that represents the number of moves played.
+     * @return The position reached, which is never over.
+     */
+    static Position opening(Random random, int plies) {
+        return opening(random, new Position(), plies);
+    }
+
+    /**
+     * This method plays random legal moves from the given position. An
+     * opening that ends the game is drawn again.
+     * @param random The generator the moves are drawn from.
+     * @param start The position to play from. It is not modified.
+     * @param plies An integer that represents the number of moves played.
+     * @return The position reached, which is never over.
+     */
+    static Position opening(Random random, Position start, int plies) {
+        Position position = new Position(start);
+        do {
+            position.copyFrom(start);
+            for (int ply = 0; ply < plies && position.getTurn() != 0; ply++) {
+                int move;
+                do {
+                    move = random.nextInt(position.getStores());
+                } while (!position.isLegal(move));
+                position.sow(move);
+            }
+        } while (position.getTurn() == 0);
+        return position;
+    }
+
+    /**
+     * This method fits an Elo rating to every engine from the results of
+     * the games. The ratings are the Bradley-Terry strengths on the Elo
+     * scale, with a draw counted as half a win for each side and one
+     * virtual draw between every pair so engines that never win or never
+     * lose keep a finite rating. The ratings average to 0.
+     * @return An array with the rating of each engine.
+     */
+    public double[] ratings() {
+        int count = engines.size();
+        double[][] games = new double[count][count];
+        double[] wins = new double[count];
+        for (int a = 0; a < count; a++) {
+            for (int b = 0; b < count; b++) {
+                if (a != b) {
+                    games[a][b] = 1;
+                    wins[a] += 0.5;
+                }
+            }
+        }
+        for (Result result : results) {
+            games[result.first][result.second]++;
+            games[result.second][result.first]++;
+            wins[result.first] += result.points(result.first);
+            wins[result.second] += result.points(result.second);
+        }
+
+        double[] strength = new double[count];
+        Arrays.fill(strength, 1);
+        for (int iteration = 0; iteration < 1000; iteration++) {
+            double[] next = new double[count];
+            double total = 0;
+            for (int a = 0; a < count; a++) {
+                double sum = 0;
+                for (int b = 0; b < count; b++) {
+                    if (a != b)
+                        sum += games[a][b] / (strength[a] + strength[b]);
+                }
+                next[a] = wins[a] / sum;
+                total += Math.log(next[a]);
+            }
+            // keep the geometric mean at 1
+            double scale = Math.exp(total / count);
+            for (int a = 0; a < count; a++)
+                strength[a] = next[a] / scale;
+        }
+
+        double[] ratings = new double[count];
+        for (int a = 0; a < count; a++)
+            ratings[a] = 400 * Math.log10(strength[a]);
+        return ratings;
+    }
+
+    /**
+     * This method writes one line per game.
+     * @param file The file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public void writeGames(File file) throws IOException {
+        PrintWriter out = new PrintWriter(file, "UTF-8");
+        try {
+            out.println("game,opening,player1,player2,house1,house2,result");
+            for (int i = 0; i < results.size(); i++) {
+                Result result = results.get(i);
+                out.printf("%d,%d,%s,%s,%d,%d,%s%n", i, result.opening,
+                        engines.get(result.first).getName(), engines.get(result.second).getName(),
+                        result.house1, result.house2,
+                        result.house1 > result.house2 ? "1-0"
+                                : result.house1 < result.house2 ? "0-1" : "1/2");
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * This method writes one line per engine with its record and rating,
+     * strongest first.
+     * @param file The file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public void writeStandings(File file) throws IOException {
+        PrintWriter out = new PrintWriter(file, "UTF-8");
+        try {
+            out.println("engine,games,wins,draws,losses,score,elo");
+            for (String line : standings())
+                out.println(line);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * @return One comma separated line per engine with its name, games,
+     * wins, draws, losses, score and rating, strongest first.
+     */
+    public List<String> standings() {
+        final double[] ratings = ratings();
+        Integer[] order = new Integer[engines.size()];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                return Double.compare(ratings[b], ratings[a]);
+            }
+        });
+
+        List<String> lines = new ArrayList<String>();
+        for (int engine : order) {
+            int wins = 0;
+            int draws = 0;
+            int losses = 0;
+            for (Result result : results) {
+                if (result.first != engine && result.second != engine)
+                    continue;
+                double points = result.points(engine);
+                if (points == 1)
+                    wins++;
+                else if (points == 0)
+                    losses++;
+                else
+                    draws++;
+            }
+            int games = wins + draws + losses;
+            lines.add(String.format(Locale.ROOT, "%s,%d,%d,%d,%d,%.3f,%.1f",
+                    engines.get(engine).getName(), games, wins, draws, losses,
+                    games == 0 ? 0 : (wins + 0.5 * draws) / games, ratings[engine]));
+        }
+        return lines;
+    }
+
+    public List<Result> getResults() {
+        return results;
+    }
+
+    public Position getStart() {
+        return start;
+    }
+
+    /**
+     * @param start The position every opening starts from, such as the
+     * start of another Kalah(m,n) variant. It is copied.
+     */
+    public void setStart(Position start) {
+        this.start = new Position(start);
+    }
+
+    /**
+     * This class plays a single game of the tournament.
+     */
+    private class Match implements Callable<Result> {
+
+        private final int opening;
+        private final Position start;
+        private final int first;
+        private final int second;
+
+        Match(int opening, Position start, int first, int second) {
+            this.opening = opening;
+            this.start = start;
+            this.first = first;
+            this.second = second;
+        }
+
+        public Result call() {
+            Engine one = engines.get(first);
+            Engine two = engines.get(second);
+            Game game = new Game(one.newPlayer(1), two.newPlayer(2), start);
+            game.setBudget(1, one.getMillis());
+            game.setBudget(2, two.getMillis());
+            game.play();
+            Position end = game.getPosition();
+            return new Result(opening, first, second, end.house(1), end.house(2));
+        }
+    }
+
+    /**
+     * This class represents the result of a game of the tournament.
+     */
+    public static class Result {
+
+        private final int opening;
+        private final int first;
+        private final int second;
+        private final int house1;
+        private final int house2;
+
+        Result(int opening, int first, int second, int house1, int house2) {
+            this.opening = opening;
+            this.first = first;
+            this.second = second;
+            this.house1 = house1;
+            this.house2 = house2;
+        }
+
+        /**
+         * @param engine An integer that represents an engine of the game.
+         * @return 1 if the engine won, 0.5 for a draw and 0 if it lost.
+         */
+        public double points(int engine) {
+            int lead = engine == first ? house1 - house2 : house2 - house1;
+            return lead > 0 ? 1 : lead < 0 ? 0 : 0.5;
+        }
+
+        public int getOpening() {
+            return opening;
+        }
+
+        /**
+         * @return The index of the engine that played player 1.
+         */
+        public int getFirst() {
+            return first;
+        }
+
+        /**
+         * @return The index of the engine that played player 2.
+         */
+        public int getSecond() {
+            return second;
+        }
+
+        public int getHouse1() {
+            return house1;
+        }
+
+        public int getHouse2() {
+            return house2;
+        }
+    }
+
+    /**
+     * This class represents the configuration of an engine taking part in
+     * a tournament.
+     */
+    public static class Engine {
+
+        private final String name;
+        private int depth;
+        private long millis;
+        private int tableSize;
+        private Evaluator evaluator;
+        private int playouts;
+
+        /**
+         * This constructor creates an engine with the default depth and
+         * evaluator, a small transposition table and no time budget.
+         * @param name The name of the engine in the tables.
+         */
+        public Engine(String name) {
+            this.name = name;
+            this.depth = Player.DEFAULT_DEPTH;
+            this.tableSize = 1 << 16;
+            this.evaluator = new ScoreEvaluator();
+        }
+
+        /**
+         * This method reads an engine from its description, the name
+         * followed by settings of the form {@code :key=value}.
+         * @param spec A string such as {@code deep:depth=14:millis=50}.
+         * @return The engine described.
+         * @throws IOException if a weights file cannot be read.
+         */
+        public static Engine parse(String spec) throws IOException {
+            String[] parts = spec.split(":");
+            Engine engine = new Engine(parts[0]);
+            for (int i = 1; i < parts.length; i++) {
+                int equals = parts[i].indexOf('=');
+                if (equals < 0)
+                    throw new IllegalArgumentException("setting without a value: " + parts[i]);
+                String key = parts[i].substring(0, equals);
+                String value = parts[i].substring(equals + 1);
+                if (key.equals("depth"))
+                    engine.setDepth(Integer.parseInt(value));
+                else if (key.equals("millis"))
+                    engine.setMillis(Long.parseLong(value));
+                else if (key.equals("table"))
+                    engine.setTableSize(Integer.parseInt(value));
+                else if (key.equals("weights"))
+                    engine.setEvaluator(LinearEvaluator.load(new File(value)));
+                else if (key.equals("mcts"))
+                    engine.setPlayouts(Integer.parseInt(value));
+                else
+                    throw new IllegalArgumentException("unknown setting: " + key);
+            }
+            return engine;
+        }
+
+        /**
+         * @param playerID An integer, either 1 or 2 that represents the
+         * side the engine plays.
+         * @return A new player with the engine's settings.
+         */
+        public Player newPlayer(int playerID) {
+            Player player = new Player(playerID, tableSize);
+            player.setDepth(depth);
+            player.setEvaluator(evaluator);
+            if (playouts > 0) {
+                player.setStrategy(Player.MONTE_CARLO);
+                player.getMonteCarlo().setPlayouts(playouts);
+            }
+            return player;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public void setDepth(int depth) {
+            this.depth = depth;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        /**
+         * @param millis A long that represents the time budget of each move
+         * in milliseconds, or 0 to search to the engine's depth.
+         */
+        public void setMillis(long millis) {
+            this.millis = millis;
+        }
+
+        public int getTableSize() {
+            return tableSize;
+        }
+
+        /**
+         * @param tableSize An integer that represents the number of entries
+         * in the transposition table, or 0 to search without one.
+         */
+        public void setTableSize(int tableSize) {
+            this.tableSize = tableSize;
+        }
+
+        public Evaluator getEvaluator() {
+            return evaluator;
+        }
+
+        /**
+         * @param evaluator The evaluator used at the end of the search. It
+         * is shared by every game the engine plays at once.
+         */
+        public void setEvaluator(Evaluator evaluator) {
+            this.evaluator = evaluator;
+        }
+
+        public int getPlayouts() {
+            return playouts;
+        }
+
+        /**
+         * @param playouts An integer that represents the playouts of a
+         * Monte Carlo tree search for each move, or 0 to play with the
+         * alpha-beta search.
+         */
+        public void setPlayouts(int playouts) {
+            this.playouts = playouts;
+        }
+    }
+
+    public static void main(String[] argv) throws IOException {
+        if (argv.length < 6) {
+            System.out.println("usage: java algorithm.Tournament <dir> <openings> <plies> <threads>"
+                    + " [stores=m] [seeds=n] <engine> <engine>...");
+            System.exit(1);
+        }
+        File dir = new File(argv[0]);
+        if (!dir.isDirectory() && !dir.mkdirs())
+            throw new IOException("cannot create " + dir);
+        int stores = Position.STORES;
+        int seeds = 3;
+        List<Engine> engines = new ArrayList<Engine>();
+        for (int i = 4; i < argv.length; i++) {
+            if (argv[i].startsWith("stores="))
+                stores = Integer.parseInt(argv[i].substring(7));
+            else if (argv[i].startsWith("seeds="))
+                seeds = Integer.parseInt(argv[i].substring(6));
+            else
+                engines.add(Engine.parse(argv[i]));
+        }
+
+        Tournament tournament = new Tournament(engines, Integer.parseInt(argv[1]),
+                Integer.parseInt(argv[2]), 1);
+        tournament.setStart(new Position(stores, seeds));
+        long start = System.nanoTime();
+        List<Result> results = tournament.play(Integer.parseInt(argv[3]));
+        tournament.writeGames(new File(dir, "games.csv"));
+        tournament.writeStandings(new File(dir, "standings.csv"));
+
+        System.out.printf("%d games in %d ms%n", results.size(),
+                (System.nanoTime() - start) / 1000000);
+        System.out.println("engine,games,wins,draws,losses,score,elo");
+        for (String line : tournament.standings())
+            System.out.println(line);
+    }
+}
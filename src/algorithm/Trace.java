@@ -0,0 +1,175 @@
+package algorithm;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class represents the trace facility of the engine. Messages are
+ * kept in a bounded ring buffer that can be dumped to a file on demand,
+ * and can also be echoed to the console.
+ * <p>
+ * Tracing is switched on with the system property {@code kalah.trace}.
+ * {@link #ENABLED} is a constant, so when tracing is off every guarded
+ * call site is removed by the JIT compiler. Call sites are written as
+ * <pre>
+ *     if (Trace.ENABLED &amp;&amp; Trace.isOn(Trace.DEBUG))
+ *         Trace.log(Trace.DEBUG, "message " + value);
+ * </pre>
+ * so the message is only built when it is logged. The other properties
+ * are {@code kalah.trace.level} (1 to 4, default 2),
+ * {@code kalah.trace.sample} (log one in n sampled events, default 1),
+ * {@code kalah.trace.buffer} (messages kept, default 10000) and
+ * {@code kalah.trace.console} (echo messages to standard out).
+ */
+public final class Trace {
+
+    public static final int ERROR = 1;
+    public static final int INFO = 2;
+    public static final int DEBUG = 3;
+    /**
+     * The level of per node messages, which are usually sampled.
+     */
+    public static final int NODE = 4;
+
+    /**
+     * True if tracing was switched on when the class was loaded.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("kalah.trace");
+    /**
+     * True if messages are kept. It starts as ENABLED and is only changed
+     * by tests, which exercise the trace without the call sites.
+     */
+    private static volatile boolean enabled = ENABLED;
+
+    private static final String[] NAMES = {"OFF", "ERROR", "INFO", "DEBUG", "NODE"};
+
+    /**
+     * The settings are changed on one thread and read by the search
+     * threads, so they are volatile.
+     */
+    private static volatile int level = Integer.getInteger("kalah.trace.level", INFO);
+    private static volatile int sampleRate =
+            Math.max(1, Integer.getInteger("kalah.trace.sample", 1));
+    private static volatile boolean console = Boolean.getBoolean("kalah.trace.console");
+
+    /**
+     * A ring buffer that holds the most recent messages.
+     */
+    private static String[] buffer = new String[Math.max(1, Integer.getInteger("kalah.trace.buffer", 10000))];
+    /**
+     * The total number of messages logged, used as the write position of
+     * the ring buffer.
+     */
+    private static long count;
+    /**
+     * The number of sampled events seen by every thread.
+     */
+    private static final AtomicLong events = new AtomicLong();
+
+    private Trace() {
+    }
+
+    /**
+     * @param level An integer that represents a trace level.
+     * @return true if messages of the level are logged.
+     */
+    public static boolean isOn(int level) {
+        return enabled && level <= Trace.level;
+    }
+
+    /**
+     * This method decides if a frequent event, such as a searched node,
+     * is logged. Only one in every sample rate events of an active level
+     * is.
+     * @param level An integer that represents a trace level.
+     * @return true if the event should be logged.
+     */
+    public static boolean sample(int level) {
+        if (!isOn(level))
+            return false;
+        int rate = sampleRate;
+        return rate == 1 || events.incrementAndGet() % rate == 0;
+    }
+
+    /**
+     * This method adds a message to the trace.
+     * @param level An integer that represents the level of the message.
+     * @param message The message.
+     */
+    public static synchronized void log(int level, String message) {
+        if (!isOn(level))
+            return;
+        String line = NAMES[level] + " [" + Thread.currentThread().getName() + "] " + message;
+        buffer[(int) (count % buffer.length)] = line;
+        count++;
+        if (console)
+            System.out.println(line);
+    }
+
+    /**
+     * This method writes the messages held in the ring buffer to a file,
+     * oldest first.
+     * @param path The path of the file to write.
+     * @return An integer that represents the number of messages written.
+     * @throws IOException if the file cannot be written.
+     */
+    public static synchronized int dump(String path) throws IOException {
+        PrintWriter out = new PrintWriter(new FileWriter(path));
+        try {
+            long first = Math.max(0, count - buffer.length);
+            for (long i = first; i < count; i++)
+                out.println(buffer[(int) (i % buffer.length)]);
+            return (int) (count - first);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * This method empties the ring buffer.
+     */
+    public static synchronized void clear() {
+        Arrays.fill(buffer, null);
+        count = 0;
+        events.set(0);
+    }
+
+    /**
+     * This method switches the trace on or off while the call sites keep
+     * following ENABLED, so tests can exercise the ring buffer, the level
+     * and the sampling whatever the system property.
+     * @param enabled True to keep messages.
+     */
+    static void setEnabled(boolean enabled) {
+        Trace.enabled = enabled;
+    }
+
+    /**
+     * This method replaces the ring buffer with an empty one.
+     * @param size An integer that represents the messages kept.
+     */
+    static synchronized void setBufferSize(int size) {
+        buffer = new String[Math.max(1, size)];
+        count = 0;
+        events.set(0);
+    }
+
+    public static int getLevel() {
+        return level;
+    }
+
+    public static void setLevel(int level) {
+        Trace.level = level;
+    }
+
+    public static void setSampleRate(int sampleRate) {
+        Trace.sampleRate = Math.max(1, sampleRate);
+    }
+
+    public static void setConsole(boolean console) {
+        Trace.console = console;
+    }
+}
@@ -0,0 +1,186 @@
+package algorithm;
+
+import java.util.Arrays;
+
+/**
+ * This class represents a fixed size transposition table for the kalah
+ * search. Each entry is stored in two parallel arrays of longs: the
+ * Zobrist hash of the position and a packed word holding the score, depth,
+ * bound type, best move and the search generation that stored it.
+ * <p>
+ * An entry is replaced if the slot is empty, holds the same position, was
+ * stored by an older search or was searched to a depth no greater than
+ * the new one. Deep entries from the current search are kept.
+ * <p>
+ * The table can be shared by several searching threads without locks.
+ * The key array holds the hash xor the packed word, so an entry whose two
+ * halves were written by different threads fails the key check on probe
+ * and is treated as a miss. The hit and miss counters are not synchronized
+ * and are approximate when the table is shared.
+ */
+public class TranspositionTable {
+
+    /**
+     * The score is exact.
+     */
+    public static final int EXACT = 1;
+    /**
+     * The score is a lower bound, the search failed high.
+     */
+    public static final int LOWER = 2;
+    /**
+     * The score is an upper bound, the search failed low.
+     */
+    public static final int UPPER = 3;
+
+    /**
+     * The largest depth an entry can hold.
+     */
+    public static final int MAX_DEPTH = 255;
+
+    /**
+     * An array of longs that holds the hash of the position xor the packed
+     * entry of each slot.
+     */
+    private final long[] keys;
+    /**
+     * An array of longs that holds the packed entry of each slot, or 0 if
+     * the slot is empty.
+     */
+    private final long[] data;
+    private final int mask;
+
+    /**
+     * An integer that is incremented on every new search so entries left
+     * by earlier searches can be replaced first.
+     */
+    private int generation;
+
+    private long hits;
+    private long misses;
+
+    /**
+     * This constructor creates an empty table.
+     * @param size An integer that represents the number of entries. It is
+     * rounded down to a power of two.
+     */
+    public TranspositionTable(int size) {
+        if (size < 1)
+            throw new IllegalArgumentException("size must be at least 1: " + size);
+        size = Integer.highestOneBit(size);
+        this.keys = new long[size];
+        this.data = new long[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * This method looks up a position in the table.
+     * @param hash A long that represents the Zobrist hash of the position.
+     * @return A packed entry to be read with {@link #score(long)},
+     * {@link #depth(long)}, {@link #bound(long)} and {@link #move(long)},
+     * or 0 if the position is not in the table.
+     */
+    public long probe(long hash) {
+        int index = (int) hash & mask;
+        long entry = data[index];
+        if (entry != 0 && (keys[index] ^ entry) == hash) {
+            hits++;
+            return entry;
+        }
+        misses++;
+        return 0;
+    }
+
+    /**
+     * This method stores the result of searching a position.
+     * @param hash A long that represents the Zobrist hash of the position.
+     * @param depth An integer that represents the depth searched.
+     * @param bound An integer, EXACT, LOWER or UPPER, that represents the
+     * type of the score.
+     * @param score An integer that represents the score of the position.
+     * @param move An integer from 0 to 5 that represents the best move, or
+     * -1 if there is none.
+     */
+    public void store(long hash, int depth, int bound, int score, int move) {
+        int index = (int) hash & mask;
+        long old = data[index];
+        if (old != 0 && (keys[index] ^ old) != hash && generation(old) == generation
+                && depth(old) > depth)
+            return;
+
+        long entry = pack(depth, bound, score, move);
+        keys[index] = hash ^ entry;
+        data[index] = entry;
+    }
+
+    /**
+     * This method packs the fields of an entry into a long. The bound is
+     * never 0 so a packed entry is never 0.
+     */
+    private long pack(int depth, int bound, int score, int move) {
+        return ((long) score << 32)
+                | ((long) (generation & 0xFF) << 16)
+                | ((long) (move + 1) << 12)
+                | ((long) bound << 8)
+                | (long) Math.min(depth, MAX_DEPTH);
+    }
+
+    public static int score(long entry) {
+        return (int) (entry >> 32);
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry & 0xFF);
+    }
+
+    public static int bound(long entry) {
+        return (int) ((entry >>> 8) & 0xF);
+    }
+
+    public static int move(long entry) {
+        return (int) ((entry >>> 12) & 0xF) - 1;
+    }
+
+    private static int generation(long entry) {
+        return (int) ((entry >>> 16) & 0xFF);
+    }
+
+    /**
+     * This method marks the start of a new search. Entries stored by
+     * earlier searches are kept but may be replaced by any new entry.
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    /**
+     * This method empties the table and resets the counters.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(data, 0);
+        generation = 0;
+        hits = 0;
+        misses = 0;
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return The fraction of probes that found their position.
+     */
+    public double getHitRate() {
+        long probes = hits + misses;
+        return probes == 0 ? 0 : (double) hits / probes;
+    }
+}
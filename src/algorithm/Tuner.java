@@ -0,0 +1,345 @@
+package algorithm;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * This class tunes the weights of a {@link LinearEvaluator} in the style
+ * of the Texel method. Positions are collected from self-play games that
+ * start from random openings and are labelled with the result of their
+ * game for player 1: 1 for a win, 0.5 for a draw and 0 for a loss. The
+ * weights are then fitted so a logistic function of the evaluation of each
+ * position predicts its label, by minimising the mean squared error with
+ * gradient descent. The games and the gradient of every step are both
+ * spread over a pool of threads.
+ * <p>
+ * The slope of the logistic function is fitted first with the starting
+ * weights, so it maps their evaluations to winning chances, and is kept
+ * while the weights move.
+ * <p>
+ * Usage: {@code java algorithm.Tuner <weights> [games] [depth] [iterations]
+ * [threads] [start]}, where start is a weight file to begin from.
+ */
+public class Tuner {
+
+    /**
+     * The moves from the start position that are not sampled, since they
+     * come from the random opening.
+     */
+    private static final int OPENING_PLIES = 4;
+
+    private final int threads;
+    private final ExecutorService pool;
+
+    /**
+     * The features of every sampled position from player 1's view, one
+     * position after the other.
+     */
+    private int[] features;
+    private double[] labels;
+    private int size;
+
+    /**
+     * @param threads An integer that represents the number of threads used
+     * to play the games and compute the gradients.
+     */
+    public Tuner(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be at least 1: " + threads);
+        this.threads = threads;
+        this.features = new int[1024 * LinearEvaluator.FEATURES];
+        this.labels = new double[1024];
+        this.pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "kalah-tuner");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * This method is responsible for playing self-play games and keeping
+     * every position after the opening with the result of its game.
+     * @param games An integer that represents the number of games.
+     * @param depth An integer that represents the depth both sides search.
+     * @param evaluator The evaluator both sides use.
+     * @param seed A long that seeds the generator of the openings.
+     */
+    public void generate(int games, final int depth, final Evaluator evaluator, long seed) {
+        Random random = new Random(seed);
+        List<Future<int[]>> results = new ArrayList<Future<int[]>>();
+        for (int i = 0; i < games; i++) {
+            final Position start = Tournament.opening(random, OPENING_PLIES);
+            results.add(pool.submit(new Callable<int[]>() {
+                public int[] call() {
+                    return play(start, depth, evaluator);
+                }
+            }));
+        }
+
+        for (Future<int[]> result : results) {
+            int[] game;
+            try {
+                game = result.get();
+            } catch (Exception e) {
+                throw new IllegalStateException("self-play game failed", e);
+            }
+            // the last slot holds player 1's lead at the end
+            int lead = game[game.length - 1];
+            double label = lead > 0 ? 1 : lead < 0 ? 0 : 0.5;
+            int positions = (game.length - 1) / LinearEvaluator.FEATURES;
+            for (int p = 0; p < positions; p++)
+                add(game, p * LinearEvaluator.FEATURES, label);
+        }
+    }
+
+    /**
+     * This method plays a game and records the features of every position
+     * where the game is not over.
+     * @return The features of each position followed by player 1's lead at
+     * the end of the game.
+     */
+    private static int[] play(Position start, int depth, Evaluator evaluator) {
+        Player one = new Player(1, 1 << 14);
+        Player two = new Player(2, 1 << 14);
+        one.setDepth(depth);
+        two.setDepth(depth);
+        one.setEvaluator(evaluator);
+        two.setEvaluator(evaluator);
+        Game game = new Game(one, two, start);
+
+        int[] record = new int[64 * LinearEvaluator.FEATURES];
+        int[] row = new int[LinearEvaluator.FEATURES];
+        int length = 0;
+        do {
+            LinearEvaluator.features(game.getPosition(), 1, row);
+            if (length + row.length > record.length)
+                record = Arrays.copyOf(record, record.length * 2);
+            System.arraycopy(row, 0, record, length, row.length);
+            length += row.length;
+        } while (game.update());
+
+        int[] result = Arrays.copyOf(record, length + 1);
+        result[length] = game.getPosition().score(1);
+        return result;
+    }
+
+    private void add(int[] source, int offset, double label) {
+        if (size == labels.length) {
+            labels = Arrays.copyOf(labels, size * 2);
+            features = Arrays.copyOf(features, size * 2 * LinearEvaluator.FEATURES);
+        }
+        System.arraycopy(source, offset, features, size * LinearEvaluator.FEATURES,
+                LinearEvaluator.FEATURES);
+        labels[size++] = label;
+    }
+
+    /**
+     * This method finds the slope of the logistic function that best maps
+     * the evaluations of the given weights to the labels, by a search over
+     * powers of two narrowed down with a ternary search.
+     * @param weights An array with the weight of each feature.
+     * @return A double that represents the slope.
+     */
+    public double fitSlope(int[] weights) {
+        double[] start = toDouble(weights);
+        double best = 1.0 / LinearEvaluator.SCALE;
+        double bestError = error(start, best);
+        for (double slope = best / 64; slope <= best * 64; slope *= 2) {
+            double error = error(start, slope);
+            if (error < bestError) {
+                bestError = error;
+                best = slope;
+            }
+        }
+        double low = best / 2;
+        double high = best * 2;
+        for (int i = 0; i < 60; i++) {
+            double a = low + (high - low) / 3;
+            double b = high - (high - low) / 3;
+            if (error(start, a) < error(start, b))
+                high = b;
+            else
+                low = a;
+        }
+        return (low + high) / 2;
+    }
+
+    /**
+     * This method fits the weights with the Adam variant of gradient
+     * descent.
+     * @param start An array with the starting weight of each feature.
+     * @param slope A double that represents the slope of the logistic
+     * function, see {@link #fitSlope(int[])}.
+     * @param iterations An integer that represents the number of steps.
+     * @param rate A double that represents the size of a step in hundredths
+     * of a seed.
+     * @return An array with the fitted weight of each feature, rounded.
+     */
+    public int[] tune(int[] start, double slope, int iterations, double rate) {
+        double[] weights = toDouble(start);
+        double[] mean = new double[weights.length];
+        double[] variance = new double[weights.length];
+        double beta1 = 0.9;
+        double beta2 = 0.999;
+        for (int step = 1; step <= iterations; step++) {
+            double[] gradient = gradient(weights, slope);
+            for (int f = 0; f < weights.length; f++) {
+                mean[f] = beta1 * mean[f] + (1 - beta1) * gradient[f];
+                variance[f] = beta2 * variance[f] + (1 - beta2) * gradient[f] * gradient[f];
+                double m = mean[f] / (1 - Math.pow(beta1, step));
+                double v = variance[f] / (1 - Math.pow(beta2, step));
+                weights[f] -= rate * m / (Math.sqrt(v) + 1e-12);
+            }
+            if (Trace.ENABLED && Trace.isOn(Trace.INFO) && step % 100 == 0)
+                Trace.log(Trace.INFO, "tuner step " + step + " error " + error(weights, slope));
+        }
+
+        int[] rounded = new int[weights.length];
+        for (int f = 0; f < weights.length; f++)
+            rounded[f] = (int) Math.round(weights[f]);
+        return rounded;
+    }
+
+    /**
+     * @param weights An array with the weight of each feature.
+     * @param slope A double that represents the slope of the logistic
+     * function.
+     * @return The mean squared error between the predicted winning chances
+     * and the labels.
+     */
+    public double error(double[] weights, double slope) {
+        double[] sums = reduce(weights, slope, false);
+        return sums[0] / size;
+    }
+
+    /**
+     * @return The gradient of the mean squared error by weight.
+     */
+    private double[] gradient(double[] weights, double slope) {
+        double[] sums = reduce(weights, slope, true);
+        double[] gradient = new double[weights.length];
+        for (int f = 0; f < weights.length; f++)
+            gradient[f] = sums[f + 1] / size;
+        return gradient;
+    }
+
+    /**
+     * This method sums the squared error, and with it the gradient, over
+     * the positions, one slice of the positions per thread.
+     * @return The squared error followed by the gradient of each weight.
+     */
+    private double[] reduce(final double[] weights, final double slope, final boolean gradient) {
+        List<Future<double[]>> parts = new ArrayList<Future<double[]>>();
+        int slice = (size + threads - 1) / threads;
+        for (int t = 0; t < threads; t++) {
+            final int from = t * slice;
+            final int to = Math.min(size, from + slice);
+            parts.add(pool.submit(new Callable<double[]>() {
+                public double[] call() {
+                    return sum(weights, slope, gradient, from, to);
+                }
+            }));
+        }
+
+        double[] total = new double[weights.length + 1];
+        for (Future<double[]> part : parts) {
+            double[] sums;
+            try {
+                sums = part.get();
+            } catch (Exception e) {
+                throw new IllegalStateException("tuner step failed", e);
+            }
+            for (int i = 0; i < total.length; i++)
+                total[i] += sums[i];
+        }
+        return total;
+    }
+
+    private double[] sum(double[] weights, double slope, boolean gradient, int from, int to) {
+        int count = LinearEvaluator.FEATURES;
+        double[] sums = new double[count + 1];
+        for (int p = from; p < to; p++) {
+            int offset = p * count;
+            double evaluation = 0;
+            for (int f = 0; f < count; f++)
+                evaluation += weights[f] * features[offset + f];
+            double predicted = 1 / (1 + Math.exp(-slope * evaluation));
+            double difference = predicted - labels[p];
+            sums[0] += difference * difference;
+            if (gradient) {
+                double scale = 2 * difference * predicted * (1 - predicted) * slope;
+                for (int f = 0; f < count; f++)
+                    sums[f + 1] += scale * features[offset + f];
+            }
+        }
+        return sums;
+    }
+
+    private static double[] toDouble(int[] weights) {
+        double[] converted = new double[weights.length];
+        for (int f = 0; f < weights.length; f++)
+            converted[f] = weights[f];
+        return converted;
+    }
+
+    /**
+     * @return The number of positions collected.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * This method stops the threads of the tuner.
+     */
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public static void main(String[] argv) throws IOException {
+        if (argv.length < 1 || argv.length > 6) {
+            System.out.println("usage: java algorithm.Tuner <weights> [games] [depth] [iterations]"
+                    + " [threads] [start]");
+            System.exit(1);
+        }
+        int games = argv.length > 1 ? Integer.parseInt(argv[1]) : 2000;
+        int depth = argv.length > 2 ? Integer.parseInt(argv[2]) : 4;
+        int iterations = argv.length > 3 ? Integer.parseInt(argv[3]) : 1000;
+        int threads = argv.length > 4 ? Integer.parseInt(argv[4])
+                : Runtime.getRuntime().availableProcessors();
+        LinearEvaluator start = argv.length > 5 ? LinearEvaluator.load(new File(argv[5]))
+                : new LinearEvaluator();
+
+        Tuner tuner = new Tuner(threads);
+        long time = System.nanoTime();
+        tuner.generate(games, depth, start, 1);
+        System.out.printf("%d positions from %d games in %d ms%n", tuner.size(), games,
+                (System.nanoTime() - time) / 1000000);
+
+        double slope = tuner.fitSlope(start.getWeights());
+        double before = tuner.error(toDouble(start.getWeights()), slope);
+        int[] weights = tuner.tune(start.getWeights(), slope, iterations, 1.0);
+        double after = tuner.error(toDouble(weights), slope);
+        tuner.shutdown();
+
+        LinearEvaluator tuned = new LinearEvaluator(weights);
+        tuned.save(new File(argv[0]), String.format(Locale.ROOT,
+                "tuned on %d positions, error %.5f -> %.5f", tuner.size(), before, after));
+        System.out.printf(Locale.ROOT, "slope %.6f error %.5f -> %.5f%n", slope,
+                before, after);
+        for (int f = 0; f < LinearEvaluator.FEATURES; f++)
+            System.out.println(LinearEvaluator.NAMES[f] + "=" + weights[f]);
+    }
+}
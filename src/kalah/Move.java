@@ -1,6 +1,22 @@
 package kalah;
 
+import algorithm.BatchSearch;
+import algorithm.EndgameDatabase;
+import algorithm.LinearEvaluator;
+import algorithm.OpeningBook;
 import algorithm.Player;
+import algorithm.Ponderer;
+import algorithm.Position;
+import algorithm.SearchStats;
+import algorithm.SolutionDatabase;
+import algorithm.Trace;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 /**
  * client.kalah.Move:
@@ -8,24 +24,70 @@ import algorithm.Player;
  */
 public class Move {
 
+    /**
+     * The number of bytes of a board exchanged through a buffer: one per
+     * piece, the player to move and the selected store.
+     */
+    public static final int BUFFER_SIZE = 16;
+    /**
+     * The index of the byte that holds the player to move, or 0 for the
+     * player of this move.
+     */
+    public static final int BUFFER_SIDE = 14;
+    /**
+     * The index of the byte the selected store is written to.
+     */
+    public static final int BUFFER_RESULT = 15;
+
     private int[] board;
     private int me;
     private int turn;
 
     private Player player;
 
+    /**
+     * The opening book consulted before searching, or null.
+     */
+    private OpeningBook book;
+    /**
+     * The perfect-play database consulted before searching, or null.
+     */
+    private SolutionDatabase solution;
+    /**
+     * The search used for batches of boards, created on first use.
+     */
+    private BatchSearch batch;
+    /**
+     * The position looked up in the book.
+     */
+    private Position position;
+    /**
+     * The statistics of the last move, or null before the first move.
+     */
+    private SearchStats stats;
+    /**
+     * The file the statistics of every move are appended to, or null.
+     */
+    private PrintWriter statsLog;
+    /**
+     * The search of the opponent's replies between moves, or null if
+     * pondering is off.
+     */
+    private Ponderer ponderer;
+
     public Move(int me, int turn, int[] board) {
         super();
         this.me = me;
         this.turn = turn;
         this.board = board;
         this.player = new Player(turn);
+        this.position = new Position();
     }
 
     public int makeMove(int[] board) {
         this.board = board;
-
-    	return this.player.makePlay(board);
+        position.set(board, player.getPlayerID());
+        return select(position, 0);
 //    	// Implement algorithm
 //    	if (this.me == 1) {
 //    	    for(int i = 0; i < 6; i++){
@@ -41,6 +103,261 @@ public class Move {
 //    	return 0;
     }
 
+    /**
+     * This method selects a move for the board within a time budget. The
+     * search deepens one move at a time and returns the best move of the
+     * deepest search that finished before the budget expired.
+     * @param board An array of 14 integers representing the seeds in each
+     * piece.
+     * @param millis A long that represents the time budget in milliseconds.
+     * @return An integer from 1 to 6 that represents the selected store.
+     */
+    public int makeMove(int[] board, long millis) {
+        this.board = board;
+        position.set(board, player.getPlayerID());
+        return select(position, millis);
+    }
+
+    /**
+     * This method selects a move for a board held in a buffer, so the
+     * board can be shared with the caller without copying. The buffer
+     * holds one byte per piece, then the player to move, and the selected
+     * store is written to the byte after it. The buffer's position and
+     * limit are not changed.
+     * @param buffer A buffer of at least BUFFER_SIZE bytes, preferably
+     * direct.
+     * @return An integer from 1 to 6 that represents the selected store.
+     */
+    public int makeMove(ByteBuffer buffer) {
+        return makeMove(buffer, 0);
+    }
+
+    /**
+     * This method selects a move for a board held in a buffer within a
+     * time budget.
+     * @param buffer A buffer of at least BUFFER_SIZE bytes, preferably
+     * direct.
+     * @param millis A long that represents the time budget in milliseconds,
+     * or 0 to search to the depth of the player.
+     * @return An integer from 1 to 6 that represents the selected store.
+     */
+    public int makeMove(ByteBuffer buffer, long millis) {
+        int side = buffer.get(BUFFER_SIDE);
+        position.set(buffer, 0, side == 0 ? player.getPlayerID() : side);
+
+        int move = select(position, millis);
+        buffer.put(BUFFER_RESULT, (byte) move);
+        return move;
+    }
+
+    /**
+     * This method selects a move from the opening book, the perfect-play
+     * database, the pondered replies or a search, in that order, and
+     * starts pondering the opponent's replies to it.
+     * @param position The position to move in.
+     * @param millis A long that represents the time budget in milliseconds,
+     * or 0 to search to the depth of the player.
+     * @return An integer from 1 to 6 that represents the selected store.
+     */
+    private int select(Position position, long millis) {
+        SearchStats pondered = ponderer != null ? ponderer.stop(position) : null;
+        int move = bookMove(position);
+        if (move == 0 && pondered != null) {
+            move = pondered.getMove() + 1;
+            record(pondered);
+        }
+        if (move == 0) {
+            move = this.player.makePlay(position, millis);
+            record(player.getStats());
+        }
+        if (ponderer != null && move > 0)
+            ponderer.start(position, move - 1, millis);
+        return move;
+    }
+
+    /**
+     * This method selects a move for each of many boards in one call,
+     * searching the boards in parallel. The boards are searched to the
+     * depth of the player and with its databases, but the opening book is
+     * not consulted.
+     * @param boards An array of 14 integers per board representing the
+     * seeds in each piece, one board after the other.
+     * @param players An array of integers, either 1 or 2, that represent
+     * the player to move on each board, or null for this player on every
+     * board.
+     * @return An array with an integer from 1 to 6 for each board that
+     * represents the selected store, or 0 if the game is over. No
+     * statistics are recorded for the boards.
+     */
+    public int[] makeMoves(int[] boards, int[] players) {
+        return makeMoves(boards, players, 0);
+    }
+
+    /**
+     * This method selects a move for each of many boards in one call,
+     * searching each board in parallel within a time budget.
+     * @param boards An array of 14 integers per board representing the
+     * seeds in each piece, one board after the other.
+     * @param players An array of integers, either 1 or 2, that represent
+     * the player to move on each board, or null for this player on every
+     * board.
+     * @param millis A long that represents the time budget for each board
+     * in milliseconds, or 0 to search to the depth of the player.
+     * @return An array with an integer from 1 to 6 for each board that
+     * represents the selected store, or 0 if the game is over.
+     */
+    public int[] makeMoves(int[] boards, int[] players, long millis) {
+        stopPondering();
+        if (players == null) {
+            players = new int[boards.length / Position.PIECES];
+            Arrays.fill(players, player.getPlayerID());
+        }
+        if (batch == null)
+            batch = new BatchSearch(player.getSearch(), Runtime.getRuntime().availableProcessors());
+        int[] moves = batch.search(boards, players, millis);
+        for (int i = 0; i < moves.length; i++)
+            moves[i]++;
+        return moves;
+    }
+
+    /**
+     * This method looks the position up in the opening book, then in the
+     * perfect-play database.
+     * @param position The position to look up.
+     * @return An integer from 1 to 6 that represents the move found, or 0
+     * if neither holds the position.
+     */
+    private int bookMove(Position position) {
+        long time = System.nanoTime();
+        String source = SearchStats.BOOK;
+        int move = book != null ? book.probe(position) : -1;
+        if (move < 0 && solution != null) {
+            source = SearchStats.SOLUTION;
+            move = solution.bestMove(position, player.getSearch().getEndgame());
+        }
+        if (move >= 0)
+            record(SearchStats.lookup(source, move, System.nanoTime() - time));
+        return move + 1;
+    }
+
+    /**
+     * This method keeps the statistics of a move and appends them to the
+     * log if there is one.
+     */
+    private void record(SearchStats stats) {
+        this.stats = stats;
+        if (statsLog != null) {
+            statsLog.println(stats.toJson());
+            statsLog.flush();
+        }
+    }
+
+    /**
+     * @return The statistics of how the last move of makeMove was chosen:
+     * its source, positions visited, speed, depth, table hit rate, cutoffs,
+     * branching factor and time per iteration. Null before the first move.
+     */
+    public SearchStats getStats() {
+        return stats;
+    }
+
+    /**
+     * This method appends the statistics of every following move to a
+     * file as one line of JSON per move.
+     * @param path The path of the file to append to, or null to stop
+     * logging.
+     * @throws IOException if the file cannot be opened.
+     */
+    public void logStats(String path) throws IOException {
+        if (statsLog != null)
+            statsLog.close();
+        statsLog = path != null ? new PrintWriter(new FileWriter(path, true)) : null;
+    }
+
+    /**
+     * This method switches pondering on or off. With pondering on, the
+     * positions the opponent can hand back are searched in the background
+     * as soon as a move is returned, and a pondered position is answered
+     * at once by the next makeMove. Otherwise that search starts with the
+     * transposition table the pondering filled.
+     * @param pondering True to ponder between moves.
+     */
+    public void setPondering(boolean pondering) {
+        if (pondering && ponderer == null) {
+            ponderer = new Ponderer(player.getSearch());
+        } else if (!pondering && ponderer != null) {
+            ponderer.shutdown();
+            ponderer = null;
+        }
+    }
+
+    public boolean isPondering() {
+        return ponderer != null;
+    }
+
+    /**
+     * This method stops the pondering in progress, if any, before the
+     * settings of the search change or other searches run.
+     */
+    private void stopPondering() {
+        if (ponderer != null)
+            ponderer.stop();
+    }
+
+    /**
+     * This method loads an opening book that is consulted before every
+     * search.
+     * @param path The path of a file written by OpeningBook.
+     * @throws IOException if the file cannot be read.
+     */
+    public void loadBook(String path) throws IOException {
+        this.book = OpeningBook.open(new File(path));
+    }
+
+    /**
+     * This method loads an endgame database for the search to probe.
+     * @param path The path of a file written by EndgameDatabase.
+     * @throws IOException if the file cannot be read.
+     */
+    public void loadEndgame(String path) throws IOException {
+        stopPondering();
+        this.player.setEndgame(EndgameDatabase.open(new File(path)));
+    }
+
+    /**
+     * This method loads the weights of a linear evaluation that the search
+     * uses from then on.
+     * @param path The path of a weight file read by LinearEvaluator.
+     * @throws IOException if the file cannot be read.
+     */
+    public void loadWeights(String path) throws IOException {
+        stopPondering();
+        this.player.setEvaluator(LinearEvaluator.load(new File(path)));
+    }
+
+    /**
+     * This method loads the perfect-play database written by the solver.
+     * It is consulted before every search and probed by the search itself.
+     * @param path The path of a file written by GameSolver.
+     * @throws IOException if the file cannot be read.
+     */
+    public void loadSolution(String path) throws IOException {
+        stopPondering();
+        this.solution = SolutionDatabase.open(new File(path));
+        this.player.getSearch().setSolution(solution);
+    }
+
+    /**
+     * This method writes the most recent trace messages to a file. Tracing
+     * must be switched on with -Dkalah.trace=true when the JVM starts.
+     * @param path The path of the file to write.
+     * @return An integer that represents the number of messages written.
+     * @throws IOException if the file cannot be written.
+     */
+    public int dumpTrace(String path) throws IOException {
+        return Trace.dump(path);
+    }
+
     public static void main(String[] argv) {
 
     }
@@ -1,4 +1,5 @@
 import jpype
+import json
 import os
 import pygame
 import sys
@@ -22,14 +23,66 @@ class AIControl:
         # python var to represent java class
         self.java_move = Move(me, turn, tmp)
 
-    def get_move(self, board):
-        tmp = []
-        for b in board.values():
-            print(len(b.seeds))
-            tmp.append(len(b.seeds))
-        select = self.java_move.makeMove(tmp)
-        # print(select)
-        return select
+        # board shared with the engine: one byte per pit, the side to move
+        # (0 for this player) and the selected store written back by the
+        # engine. The buffer is allocated on the Java side, since the nio
+        # support of JPype 0.5.4.2 only wraps immutable strings.
+        self.buffer_side = Move.BUFFER_SIDE
+        ByteBuffer = jpype.JClass("java.nio.ByteBuffer")
+        self.java_buffer = ByteBuffer.allocateDirect(Move.BUFFER_SIZE)
+
+    def get_move(self, board, budget=None):
+        """Ask the engine for a move. budget is the search time in
+        milliseconds; without it the engine searches to a fixed depth."""
+        pits = [0] * (self.buffer_side + 1)
+        for i, b in enumerate(board.values()):
+            pits[i] = len(b.seeds)
+        # one bulk copy of the pits and the side to move, this player
+        self.java_buffer.rewind()
+        self.java_buffer.put(jpype.JArray(jpype.JByte)(pits))
+        # the engine also writes the selected store to Move.BUFFER_RESULT
+        if budget is None:
+            return self.java_move.makeMove(self.java_buffer)
+        return self.java_move.makeMove(self.java_buffer, budget)
+
+    def get_moves(self, boards, players=None, budget=None):
+        """Ask the engine for a move on each of many boards in one call.
+        boards is a list of boards, each a list of the 14 seed counts;
+        players holds the player to move on each board and defaults to
+        this player. The boards are searched in parallel on the Java side.
+        Returns a list with the selected store of each board, or 0 where
+        the game is over."""
+        flat = []
+        for b in boards:
+            flat.extend(b)
+        flat = jpype.JArray(jpype.JInt)(flat)
+        if players is not None:
+            players = jpype.JArray(jpype.JInt)(players)
+        if budget is None:
+            moves = self.java_move.makeMoves(flat, players)
+        else:
+            moves = self.java_move.makeMoves(flat, players, budget)
+        return list(moves)
+
+    def get_stats(self):
+        """Return how the engine chose its last move as a dict: source,
+        store, nodes, ms, nps, depth, tableHitRate, cutoffs,
+        branchingFactor and the iterations, or None before the first
+        move."""
+        stats = self.java_move.getStats()
+        if stats is None:
+            return None
+        return json.loads(str(stats.toJson()))
+
+    def log_stats(self, path):
+        """Append the statistics of every following move to a file as
+        JSON lines, or stop logging when path is None."""
+        self.java_move.logStats(path)
+
+    def set_pondering(self, on):
+        """Search the opponent's possible replies in the background after
+        every move, so a reply that was pondered is answered at once."""
+        self.java_move.setPondering(on)
 
     def __exit__(self, exc_type, exc_val, exc_tb):
         jpype.shutdownJVM()
@@ -6,6 +6,9 @@ from pygame.constants import QUIT
 from gui import Board
 from controller import AIControl
 
+# time the engine may spend on a move, in milliseconds
+AI_BUDGET = 500
+
 
 class Kalah:
     def __init__(self, player_num, pl1=None, pl2=None):
@@ -59,7 +62,7 @@ class Kalah:
                 return self.move()
 
     def ai_controls(self):
-        move = self.ai.get_move(self.board)
+        move = self.ai.get_move(self.board, AI_BUDGET)
         if self.me == 1:
             if move >= 0 and move <= 5:
                 print("me", self.me, move)
@@ -0,0 +1,77 @@
+package algorithm;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BatchSearchTest {
+
+    private Search template;
+    private BatchSearch batch;
+
+    @Before
+    public void setUp() throws Exception {
+        template = new Search(new ScoreEvaluator(), 8);
+        template.setTable(new TranspositionTable(1 << 12));
+        batch = new BatchSearch(template, 3);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        batch.shutdown();
+    }
+
+    @Test
+    public void testMatchesSingleSearch() throws Exception {
+        Random random = new Random(12);
+        int count = 40;
+        int[] boards = new int[count * Position.PIECES];
+        int[] players = new int[count];
+        Position position = new Position();
+        for (int i = 0; i < count; i++) {
+            // play a few random moves from the start
+            position.copyFrom(new Position());
+            for (int ply = random.nextInt(12); ply > 0 && position.getTurn() != 0; ply--) {
+                int move;
+                do {
+                    move = random.nextInt(Position.STORES);
+                } while (!position.isLegal(move));
+                position.sow(move);
+            }
+            int[] board = position.toIntArray();
+            System.arraycopy(board, 0, boards, i * Position.PIECES, Position.PIECES);
+            players[i] = position.getTurn() == 0 ? 1 : position.getTurn();
+        }
+
+        // without tables every worker searches exactly like a plain search
+        Search plain = new Search(new ScoreEvaluator(), 8);
+        BatchSearch untabled = new BatchSearch(plain, 3);
+        int[] moves = untabled.search(boards, players);
+        untabled.shutdown();
+        for (int i = 0; i < count; i++) {
+            position.set(boards, i * Position.PIECES, players[i]);
+            int expected = position.isGameOver() ? -1 : plain.search(position);
+            assertEquals(position.toString(), expected, moves[i]);
+        }
+    }
+
+    @Test
+    public void testTimedBatch() throws Exception {
+        int[] boards = new int[2 * Position.PIECES];
+        new Position().copyTo(boards);
+        System.arraycopy(boards, 0, boards, Position.PIECES, Position.PIECES);
+        int[] moves = batch.search(boards, new int[] { 1, 2 }, 20);
+        assertEquals(2, moves.length);
+        assertTrue(moves[0] >= 0 && moves[0] < Position.STORES);
+        assertTrue(moves[1] >= 0 && moves[1] < Position.STORES);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsPartialBoard() throws Exception {
+        batch.search(new int[Position.PIECES + 1], new int[] { 1 });
+    }
+}
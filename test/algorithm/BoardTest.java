@@ -46,7 +46,9 @@ public class BoardTest {
 //        player.printBoard(board.convertToIntArray());
         int[] b1 = new int[]{0,0,0,0,1,0,1,0,0,0,0,0,1,1};
 //        player.printBoard(b1);
-        assertEquals(0, board.transfer(4, 1, b1));
+        // the last seed lands in the empty store 5 across from an empty
+        // store, so there is no capture and player 2 moves next
+        assertEquals(2, board.transfer(4, 1, b1));
 //        player.printBoard(board.convertToIntArray());
     }
 
@@ -54,8 +56,8 @@ public class BoardTest {
     public void testClear() throws Exception {
         int[] exp = new int[]{0,0,0,0,0,0,2,0,0,0,0,0,0,3};
         int[] b2  = new int[]{0,0,0,0,0,1,1,0,0,1,1,0,0,1};
+        board.setBoard(b2);
         board.clear();
-        System.out.println(board.convertToIntArray()[6]);
         assertArrayEquals(exp, board.convertToIntArray());
     }
 
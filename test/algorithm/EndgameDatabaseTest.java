@@ -0,0 +1,145 @@
+package algorithm;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class EndgameDatabaseTest {
+
+    private static EndgameDatabase database;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        database = EndgameDatabase.build(8);
+    }
+
+    @Test
+    public void testSize() throws Exception {
+        // ways to spread up to 8 seeds over 12 stores: C(20, 12)
+        assertEquals(125970, database.size());
+    }
+
+    @Test
+    public void testIndexIsUnique() throws Exception {
+        boolean[] seen = new boolean[(int) database.offset(5)];
+        Position position = new Position();
+        position.setTurn(1);
+        // every position with up to 4 seeds
+        assertEquals(1820, spread(position, 0, 4, seen));
+    }
+
+    @Test
+    public void testMatchesMinimax() throws Exception {
+        Position position = new Position();
+        Random random = new Random(11);
+        for (int i = 0; i < 300; i++) {
+            randomPosition(random, position, 8);
+            position.setTurn(1 + random.nextInt(2));
+            if (position.isGameOver())
+                continue;
+            assertEquals(position.toString(), minimax(position), database.probe(position));
+        }
+    }
+
+    @Test
+    public void testWriteAndOpen() throws Exception {
+        File file = File.createTempFile("endgame", ".db");
+        file.deleteOnExit();
+        database.write(file);
+        EndgameDatabase mapped = EndgameDatabase.open(file);
+        assertEquals(8, mapped.getMaxSeeds());
+        Position position = new Position();
+        Random random = new Random(5);
+        for (int i = 0; i < 1000; i++) {
+            randomPosition(random, position, 8);
+            assertEquals(database.probe(position), mapped.probe(position));
+        }
+    }
+
+    @Test
+    public void testOutsideDatabase() throws Exception {
+        assertEquals(EndgameDatabase.NO_VALUE, database.probe(new Position()));
+    }
+
+    @Test
+    public void testSearchWithDatabase() throws Exception {
+        Position position = new Position(new int[]{1,0,2,0,1,1,14,2,0,1,0,1,1,12}, 1);
+        Search plain = new Search(new ScoreEvaluator(), 40);
+        Search probing = new Search(new ScoreEvaluator(), 40);
+        probing.setEndgame(database);
+        plain.search(position);
+        probing.search(position);
+        assertEquals(plain.getScore() > 0, probing.getScore() > 0);
+        assertTrue(probing.getNodes() < plain.getNodes());
+    }
+
+    /**
+     * This method places up to the given seeds into the store of the given
+     * number and every store after it, and marks the index of every
+     * position made.
+     * @return The number of positions with a new index.
+     */
+    private int spread(Position position, int store, int seeds, boolean[] seen) {
+        int piece = store < 6 ? store : store + 1;
+        int found = 0;
+        for (int count = 0; count <= seeds; count++) {
+            position.put(piece, count);
+            if (store < 11) {
+                found += spread(position, store + 1, seeds - count, seen);
+            } else {
+                int total = position.side(1) + position.side(2);
+                int index = (int) database.index(position, total);
+                assertTrue(index >= database.offset(total) && index < database.offset(total + 1));
+                if (!seen[index]) {
+                    seen[index] = true;
+                    found++;
+                }
+            }
+        }
+        position.put(piece, 0);
+        return found;
+    }
+
+    /**
+     * This method spreads a random number of seeds up to the maximum over
+     * the stores of the position.
+     * @return The number of seeds spread.
+     */
+    private int randomPosition(Random random, Position position, int max) {
+        int seeds = random.nextInt(max + 1);
+        for (int i = 0; i < Position.PIECES; i++)
+            position.put(i, 0);
+        for (int i = 0; i < seeds; i++) {
+            int store = random.nextInt(12);
+            int piece = store < 6 ? store : store + 1;
+            position.put(piece, position.get(piece) + 1);
+        }
+        position.setTurn(1);
+        return seeds;
+    }
+
+    /**
+     * A plain minimax to the end of the game used as a reference.
+     */
+    private int minimax(Position position) {
+        int player = position.getTurn();
+        int best = Integer.MIN_VALUE;
+        for (int move = 0; move < 6; move++) {
+            if (!position.isLegal(move))
+                continue;
+            Position child = new Position(position);
+            int turn = child.sow(move);
+            int value = child.score(player) - position.score(player);
+            if (turn == player)
+                value += minimax(child);
+            else if (turn != 0)
+                value -= minimax(child);
+            best = Math.max(best, value);
+        }
+        return best;
+    }
+}
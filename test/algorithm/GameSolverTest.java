@@ -0,0 +1,87 @@
+package algorithm;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class GameSolverTest {
+
+    private static EndgameDatabase endgame;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        endgame = EndgameDatabase.build(12);
+    }
+
+    @Test
+    public void testMatchesEndgameDatabase() throws Exception {
+        // Kalah(6,1) has 12 seeds, so the endgame database holds the start
+        GameSolver solver = new GameSolver(new Position(1), table(1 << 16), null, null);
+        assertEquals(endgame.probe(new Position(1)), solver.solve());
+    }
+
+    @Test
+    public void testEndgameDoesNotChangeValue() throws Exception {
+        GameSolver plain = new GameSolver(new Position(2), table(1 << 18), null, null);
+        GameSolver probed = new GameSolver(new Position(2), table(1 << 18), endgame, null);
+        int value = plain.solve();
+        assertEquals(value, probed.solve());
+        assertTrue(probed.getNodes() < plain.getNodes());
+    }
+
+    @Test
+    public void testResume() throws Exception {
+        File file = temp("table");
+        File progress = temp("progress");
+        progress.delete();
+        GameSolver first = new GameSolver(new Position(2), new SolutionTable(file, 1 << 18),
+                endgame, progress);
+        int value = first.solve();
+        assertTrue(progress.exists());
+
+        // the bounds on disk solve the start again at once
+        GameSolver second = new GameSolver(new Position(2), new SolutionTable(file, 1 << 18),
+                endgame, progress);
+        assertEquals(value, second.solve());
+        assertEquals(first.getNodes(), second.getNodes());
+    }
+
+    @Test
+    public void testSolutionDatabase() throws Exception {
+        SolutionTable table = table(1 << 18);
+        GameSolver solver = new GameSolver(new Position(2), table, endgame, null);
+        int value = solver.solve();
+        solver.solveLines(Integer.MAX_VALUE);
+
+        File file = temp("db");
+        SolutionDatabase.build(table, 24).write(file);
+        SolutionDatabase database = SolutionDatabase.open(file);
+        assertTrue(database.size() > 0);
+        assertEquals(value, database.probe(new Position(2)));
+
+        // following the database never loses seeds against the value
+        Position position = new Position(2);
+        int move = database.bestMove(position, endgame);
+        assertTrue(move >= 0);
+        int turn = position.sow(move);
+        int rest = database.probe(position);
+        if (rest == EndgameDatabase.NO_VALUE)
+            rest = endgame.probe(position);
+        assertEquals(value, position.score(1) + (turn == 1 ? rest : -rest));
+    }
+
+    private static SolutionTable table(long slots) throws Exception {
+        return new SolutionTable(temp("table"), slots);
+    }
+
+    private static File temp(String suffix) throws Exception {
+        File file = File.createTempFile("solver", "." + suffix);
+        file.deleteOnExit();
+        // the table creates its own file
+        file.delete();
+        return file;
+    }
+}
@@ -0,0 +1,33 @@
+package algorithm;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GameTest {
+
+    @Test
+    public void testFormatStandardBoard() throws Exception {
+        // every piece holds its own index
+        Position start = new Position(new int[]{0,1,2,3,4,5,6,7,8,9,10,11,12,13}, 1);
+        Game game = new Game(new Player(1, 0), new Player(2, 0), start);
+        assertEquals("+------+------+------+------+------+------+------+------+\n"
+                + "|      |  12  |  11  |  10  |  09  |  08  |  07  |      |\n"
+                + "|  13  |------+------+------+------+------+------|  06  |\n"
+                + "|      |  00  |  01  |  02  |  03  |  04  |  05  |      |\n"
+                + "+------+------+------+------+------+------+------+------+\n",
+                game.formatBoard());
+    }
+
+    @Test
+    public void testFormatSmallerBoard() throws Exception {
+        Position start = new Position(new int[]{0,1,2,3,4,5,6,7,8,9}, 1);
+        Game game = new Game(new Player(1, 0), new Player(2, 0), start);
+        assertEquals("+------+------+------+------+------+------+\n"
+                + "|      |  08  |  07  |  06  |  05  |      |\n"
+                + "|  09  |------+------+------+------|  04  |\n"
+                + "|      |  00  |  01  |  02  |  03  |      |\n"
+                + "+------+------+------+------+------+------+\n",
+                game.formatBoard());
+    }
+}
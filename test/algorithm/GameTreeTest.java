@@ -0,0 +1,73 @@
+package algorithm;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GameTreeTest {
+
+    @Test
+    public void testExpandAddsChildPerLegalMove() throws Exception {
+        GameTree tree = new GameTree(64);
+        Position position = new Position();
+        tree.reset(1);
+        int first = tree.expand(GameTree.ROOT, position);
+        assertEquals(1, first);
+        assertEquals(6, tree.getChildCount(GameTree.ROOT));
+        assertEquals(7, tree.size());
+        // store 3 ends in the house and the player moves again
+        assertEquals(1, tree.getTurn(tree.child(GameTree.ROOT, 3)));
+        assertEquals(2, tree.getTurn(tree.child(GameTree.ROOT, 0)));
+        assertEquals(position, new Position());
+        assertEquals(-1, tree.expand(GameTree.ROOT, position));
+    }
+
+    @Test
+    public void testExpandStopsWhenFull() throws Exception {
+        GameTree tree = new GameTree(13);
+        Position position = new Position();
+        tree.reset(1);
+        tree.expand(GameTree.ROOT, position);
+        int undo = position.make(0);
+        assertEquals(7, tree.expand(tree.child(GameTree.ROOT, 0), position));
+        position.unmake(undo);
+        position.make(1);
+        assertEquals(-1, tree.expand(tree.child(GameTree.ROOT, 1), position));
+        assertFalse(tree.isExpanded(tree.child(GameTree.ROOT, 1)));
+    }
+
+    @Test
+    public void testRerootKeepsSubtree() throws Exception {
+        GameTree tree = new GameTree(256);
+        Position position = new Position();
+        tree.reset(1);
+        tree.expand(GameTree.ROOT, position);
+        int five = tree.child(GameTree.ROOT, 5);
+        int undo = position.make(5);
+        tree.expand(five, position);
+        position.unmake(undo);
+        position.make(1);
+        tree.expand(tree.child(GameTree.ROOT, 1), position);
+        int reply = tree.child(five, 2);
+        tree.addVisit(five);
+        tree.addValue(reply, 7);
+
+        Position board = new Position();
+        Position target = new Position();
+        target.make(5);
+        assertEquals(five, tree.find(GameTree.ROOT, board, target, 2));
+        assertEquals(new Position(), board);
+
+        tree.reroot(five);
+        assertEquals(7, tree.size());
+        assertEquals(2, tree.getTurn(GameTree.ROOT));
+        assertEquals(1, tree.getVisits(GameTree.ROOT));
+        assertEquals(7, tree.getValue(tree.child(GameTree.ROOT, 2)));
+        assertEquals(GameTree.ROOT, tree.find(GameTree.ROOT, target, target, 2));
+
+        tree.reset(1);
+        assertEquals(1, tree.size());
+        assertFalse(tree.isExpanded(GameTree.ROOT));
+        assertEquals(0, tree.getVisits(GameTree.ROOT));
+    }
+}
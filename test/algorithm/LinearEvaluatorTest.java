@@ -0,0 +1,136 @@
+package algorithm;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LinearEvaluatorTest {
+
+    @Test
+    public void testDefaultIsHouseDifference() throws Exception {
+        Position position = new Position(new int[]{1,0,2,0,1,1,14,2,0,1,0,1,1,12}, 1);
+        LinearEvaluator evaluator = new LinearEvaluator();
+        assertEquals(200, evaluator.evaluate(position, 1));
+        assertEquals(-200, evaluator.evaluate(position, 2));
+    }
+
+    @Test
+    public void testStaysInsideProvenScores() throws Exception {
+        Position position = new Position(new int[]{1,0,2,0,1,1,70,2,0,1,0,1,1,10}, 1);
+        LinearEvaluator evaluator = new LinearEvaluator(new int[]{1000, 0, 0, 0, 0, 0, 0, 0});
+        assertEquals(Search.WIN - 1, evaluator.evaluate(position, 1));
+        assertEquals(-Search.WIN + 1, evaluator.evaluate(position, 2));
+    }
+
+    @Test
+    public void testFeatures() throws Exception {
+        // store 3 lands in the house, store 0 lands in empty store 1 across from 4 seeds
+        Position position = new Position(new int[]{1,0,2,3,0,0,5,0,0,0,4,4,0,7}, 1);
+        int[] features = new int[LinearEvaluator.FEATURES];
+        LinearEvaluator.features(position, 1, features);
+        assertEquals(-2, features[LinearEvaluator.HOUSE]);
+        assertEquals(6, features[LinearEvaluator.SEEDS]);
+        assertEquals(8, features[LinearEvaluator.OPPONENT_SEEDS]);
+        assertEquals(5, features[LinearEvaluator.CAPTURES]);
+        assertEquals(1, features[LinearEvaluator.EXTRA_TURNS]);
+        assertEquals(1, features[LinearEvaluator.TEMPO]);
+
+        // store 10 (move 2) sows 11, 12, 13 and 0, store 11 (move 1) ends on store 1
+        assertEquals(0, features[LinearEvaluator.OPPONENT_EXTRA_TURNS]);
+        assertEquals(0, features[LinearEvaluator.OPPONENT_CAPTURES]);
+    }
+
+    @Test
+    public void testFeaturesOfPlayerTwo() throws Exception {
+        // store 12 (move 0) lands in the house and store 11 (move 1) sows
+        // into empty store 12 across from 5 seeds
+        Position position = new Position(new int[]{5,1,1,1,1,1,0,0,0,0,0,1,1,0}, 2);
+        int[] features = new int[LinearEvaluator.FEATURES];
+        LinearEvaluator.features(position, 2, features);
+        assertEquals(1, features[LinearEvaluator.EXTRA_TURNS]);
+        assertEquals(0, features[LinearEvaluator.CAPTURES]);
+
+        position.put(12, 0);
+        LinearEvaluator.features(position, 2, features);
+        assertEquals(0, features[LinearEvaluator.EXTRA_TURNS]);
+        assertEquals(6, features[LinearEvaluator.CAPTURES]);
+    }
+
+    @Test
+    public void testFeaturesAreSymmetric() throws Exception {
+        Random random = new Random(3);
+        int[] board = new int[Position.PIECES];
+        int[] rotated = new int[Position.PIECES];
+        int[] features = new int[LinearEvaluator.FEATURES];
+        int[] rotatedFeatures = new int[LinearEvaluator.FEATURES];
+        for (int i = 0; i < 200; i++) {
+            for (int piece = 0; piece < Position.PIECES; piece++)
+                board[piece] = random.nextInt(piece % 7 == 6 ? 20 : 8);
+            // the same board seen from the other side
+            for (int piece = 0; piece < Position.PIECES; piece++)
+                rotated[piece] = board[(piece + 7) % Position.PIECES];
+            LinearEvaluator.features(new Position(board, 1), 1, features);
+            LinearEvaluator.features(new Position(rotated, 2), 2, rotatedFeatures);
+            assertArrayEquals(features, rotatedFeatures);
+        }
+    }
+
+    @Test
+    public void testWeightedSumOfFeatures() throws Exception {
+        int[] weights = new int[]{100, 7, -5, 30, -25, 12, -11, 9};
+        LinearEvaluator evaluator = new LinearEvaluator(weights);
+        int[] features = new int[LinearEvaluator.FEATURES];
+        Random random = new Random(15);
+        Position position = new Position();
+        for (int i = 0; i < 200; i++) {
+            position.copyFrom(new Position());
+            for (int ply = random.nextInt(20); ply > 0 && position.getTurn() != 0; ply--) {
+                int move;
+                do {
+                    move = random.nextInt(Position.STORES);
+                } while (!position.isLegal(move));
+                position.sow(move);
+            }
+            if (position.getTurn() == 0)
+                continue;
+            for (int player = 1; player <= 2; player++) {
+                LinearEvaluator.features(position, player, features);
+                int expected = 0;
+                for (int f = 0; f < LinearEvaluator.FEATURES; f++)
+                    expected += weights[f] * features[f];
+                assertEquals(expected, evaluator.evaluate(position, player));
+            }
+        }
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        File file = File.createTempFile("weights", ".properties");
+        file.deleteOnExit();
+        LinearEvaluator evaluator = new LinearEvaluator(new int[]{100, 7, -5, 30, -25, 12, -11, 9});
+        evaluator.save(file, "test weights");
+        assertArrayEquals(evaluator.getWeights(), LinearEvaluator.load(file).getWeights());
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnknownFeature() throws Exception {
+        File file = File.createTempFile("weights", ".properties");
+        file.deleteOnExit();
+        FileWriter out = new FileWriter(file);
+        out.write("house=100\nmobility=3\n");
+        out.close();
+        LinearEvaluator.load(file);
+    }
+
+    @Test
+    public void testSearchWithWeights() throws Exception {
+        Search search = new Search(new LinearEvaluator(new int[]{100, 7, -5, 30, -25, 12, -11, 9}), 6);
+        int move = search.search(new Position());
+        assertTrue(move >= 0 && move < Position.STORES);
+    }
+}
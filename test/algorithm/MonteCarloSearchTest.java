@@ -0,0 +1,90 @@
+package algorithm;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MonteCarloSearchTest {
+
+    // store 0 captures 21 seeds and decides the game, store 3 captures 2
+    private static final int[] CAPTURE = {1,0,0,1,0,0,10,1,1,1,1,20,1,10};
+
+    // the same board from the side of player 2, where store 5 captures
+    private static final int[] ROTATED = {1,1,1,1,20,1,10,1,0,0,1,0,0,10};
+
+    private static MonteCarloSearch newSearch(int playouts) {
+        MonteCarloSearch search = new MonteCarloSearch(1 << 16);
+        search.setSeed(42);
+        search.setPlayouts(playouts);
+        return search;
+    }
+
+    @Test
+    public void testFindsDecisiveCapture() throws Exception {
+        assertEquals(0, newSearch(2000).search(new Position(CAPTURE, 1)));
+    }
+
+    @Test
+    public void testFindsDecisiveCaptureOfPlayerTwo() throws Exception {
+        assertEquals(5, newSearch(2000).search(new Position(ROTATED, 2)));
+        MonteCarloSearch search = newSearch(2000);
+        search.setHeuristic(false);
+        assertEquals(5, search.search(new Position(ROTATED, 2)));
+    }
+
+    @Test
+    public void testRandomPlayoutsReturnLegalMove() throws Exception {
+        MonteCarloSearch search = newSearch(1000);
+        search.setHeuristic(false);
+        Position position = new Position();
+        int move = search.search(position);
+        assertTrue(position.isLegal(move));
+        assertEquals(-1, search.search(new Position(new int[14], 0)));
+    }
+
+    @Test
+    public void testReusesSubtreeAfterMove() throws Exception {
+        MonteCarloSearch search = newSearch(2000);
+        Position position = new Position();
+        int move = search.search(position);
+        int kept = search.getVisits(move);
+        position.sow(move);
+
+        search.search(position);
+        assertEquals(2000 + kept, search.getRootVisits());
+
+        search.setReuse(false);
+        search.search(position);
+        assertEquals(2000, search.getRootVisits());
+    }
+
+    @Test
+    public void testStatsReportPlayouts() throws Exception {
+        MonteCarloSearch search = newSearch(500);
+        int move = search.search(new Position());
+        SearchStats stats = search.getStats();
+        assertEquals(SearchStats.MONTE_CARLO, stats.getSource());
+        assertEquals(move, stats.getMove());
+        assertEquals(500, stats.getNodes());
+        assertTrue(stats.getDepth() > 0);
+        assertTrue(stats.getScore() >= 0 && stats.getScore() <= 100);
+    }
+
+    @Test
+    public void testThreadsShareTree() throws Exception {
+        MonteCarloSearch search = new MonteCarloSearch(1 << 16, 4);
+        search.setPlayouts(4000);
+        search.setReuse(false);
+        try {
+            assertEquals(0, search.search(new Position(CAPTURE, 1)));
+            assertEquals(4000, search.getStats().getNodes());
+            assertEquals(4000, search.getRootVisits());
+            int children = 0;
+            for (int move = 0; move < Position.STORES; move++)
+                children += search.getVisits(move);
+            assertTrue(children <= 4000 && children > 4000 - 4);
+        } finally {
+            search.shutdown();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package algorithm;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class MoveOrderTest {
+
+    // store 3 lands in the house, store 0 captures 5 and store 2 is quiet
+    private static final int[] BOARD = {1,0,2,3,0,0,5,0,0,0,4,4,0,7};
+
+    // the same board from the side of player 2, whose moves 2, 5 and 3
+    // are moves 3, 0 and 2 of player 1
+    private static final int[] ROTATED = {0,0,0,4,4,0,7,1,0,2,3,0,0,5};
+
+    private static int[] ordered(MoveOrder order, int ply, int tableMove) {
+        return ordered(order, new Position(BOARD, 1), ply, tableMove);
+    }
+
+    private static int[] ordered(MoveOrder order, Position position, int ply, int tableMove) {
+        int count = order.order(position, ply, tableMove);
+        return Arrays.copyOf(order.moves(ply), count);
+    }
+
+    @Test
+    public void testTacticalMovesFirst() throws Exception {
+        MoveOrder order = new MoveOrder();
+        order.ensure(2);
+        assertArrayEquals(new int[]{3, 0, 2}, ordered(order, 1, -1));
+    }
+
+    @Test
+    public void testTacticalMovesOfPlayerTwo() throws Exception {
+        MoveOrder order = new MoveOrder();
+        order.ensure(2);
+        assertArrayEquals(new int[]{2, 5, 3}, ordered(order, new Position(ROTATED, 2), 1, -1));
+    }
+
+    @Test
+    public void testExtraTurnsClosestToHouseFirst() throws Exception {
+        MoveOrder order = new MoveOrder();
+        order.ensure(2);
+        // every store of both players ends in the house
+        int[] board = {6,5,4,3,2,1,0,1,2,3,4,5,6,0};
+        assertArrayEquals(new int[]{5, 4, 3, 2, 1, 0},
+                ordered(order, new Position(board, 1), 1, -1));
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4, 5},
+                ordered(order, new Position(board, 2), 1, -1));
+    }
+
+    @Test
+    public void testTableMoveFirst() throws Exception {
+        MoveOrder order = new MoveOrder();
+        order.ensure(2);
+        assertArrayEquals(new int[]{2, 3, 0}, ordered(order, 1, 2));
+    }
+
+    @Test
+    public void testRootKeepsNaturalOrder() throws Exception {
+        MoveOrder order = new MoveOrder();
+        assertArrayEquals(new int[]{0, 2, 3}, ordered(order, 0, -1));
+        assertArrayEquals(new int[]{2, 0, 3}, ordered(order, 0, 2));
+    }
+
+    @Test
+    public void testQuietCutoffBecomesKiller() throws Exception {
+        MoveOrder order = new MoveOrder();
+        order.ensure(2);
+        ordered(order, 1, -1);
+        order.cutoff(1, 1, 3, 4);
+        assertArrayEquals(new int[]{-1, -1}, order.getKillers(1));
+        assertEquals(0, order.getHistory(1, 3));
+
+        order.cutoff(1, 1, 2, 4);
+        assertArrayEquals(new int[]{2, -1}, order.getKillers(1));
+        assertEquals(16, order.getHistory(1, 2));
+
+        order.newSearch();
+        assertArrayEquals(new int[]{-1, -1}, order.getKillers(1));
+        assertEquals(0, order.getHistory(1, 2));
+    }
+}
@@ -0,0 +1,85 @@
+package algorithm;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class OpeningBookTest {
+
+    private static OpeningBook book;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        Search search = new Search(new ScoreEvaluator(), 1);
+        search.setTable(new TranspositionTable(1 << 16));
+        book = OpeningBook.build(new Position(), 2, search, 5);
+    }
+
+    @Test
+    public void testCoversFirstMoves() throws Exception {
+        // the start, its 6 children and the 35 positions after two moves,
+        // less the positions reached twice
+        assertTrue(book.size() > 7 && book.size() <= 42);
+        Position start = new Position();
+        assertTrue(start.isLegal(book.probe(start)));
+        for (int move = 0; move < 6; move++) {
+            Position child = new Position(start);
+            child.sow(move);
+            assertTrue(child.isLegal(book.probe(child)));
+        }
+    }
+
+    @Test
+    public void testMissingPosition() throws Exception {
+        Position position = new Position(new int[]{0,0,0,0,0,1,17,0,0,0,0,0,1,17}, 1);
+        assertEquals(-1, book.probe(position));
+    }
+
+    @Test
+    public void testWriteAndOpen() throws Exception {
+        File file = File.createTempFile("book", ".bin");
+        file.deleteOnExit();
+        book.write(file);
+        OpeningBook mapped = OpeningBook.open(file);
+        assertEquals(book.size(), mapped.size());
+        Position start = new Position();
+        assertEquals(book.probe(start), mapped.probe(start));
+        assertEquals(book.score(start), mapped.score(start));
+    }
+
+    @Test
+    public void testCoversTranspositionsReachedLate() throws Exception {
+        int plies = 6;
+        Search search = new Search(new ScoreEvaluator(), 1);
+        OpeningBook deep = OpeningBook.build(new Position(), plies, search, 0);
+
+        // every position within 6 moves, found breadth-first; a depth-first
+        // walk reaches some of them first on a longer path
+        Set<Position> seen = new HashSet<Position>();
+        List<Position> level = new ArrayList<Position>();
+        level.add(new Position());
+        seen.add(new Position());
+        for (int ply = 0; ply < plies; ply++) {
+            List<Position> next = new ArrayList<Position>();
+            for (Position position : level) {
+                for (int legal = position.legalMoves(); legal != 0; legal &= legal - 1) {
+                    Position child = new Position(position);
+                    child.sow(Integer.numberOfTrailingZeros(legal));
+                    if (child.getTurn() != 0 && seen.add(child))
+                        next.add(child);
+                }
+            }
+            level = next;
+        }
+        for (Position position : seen)
+            assertTrue(position.toString(), deep.probe(position) >= 0);
+        assertEquals(seen.size(), deep.size());
+    }
+}
@@ -0,0 +1,53 @@
+package algorithm;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ParallelSearchTest {
+
+    private ParallelSearch parallel;
+
+    @Before
+    public void setUp() throws Exception {
+        Search main = new Search(new ScoreEvaluator(), 40);
+        main.setTable(new TranspositionTable(1 << 16));
+        this.parallel = new ParallelSearch(main, 4);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        parallel.shutdown();
+        parallel = null;
+    }
+
+    @Test
+    public void testMatchesSingleThread() throws Exception {
+        Position position = new Position(new int[]{1,0,2,0,1,1,14,2,0,1,0,1,1,12}, 1);
+        Search plain = new Search(new ScoreEvaluator(), 40);
+        plain.search(position);
+        parallel.search(position);
+        assertEquals(plain.getScore(), parallel.getMain().getScore());
+    }
+
+    @Test
+    public void testTimedSearch() throws Exception {
+        Position position = new Position();
+        int move = parallel.search(position, 100);
+        assertTrue(position.isLegal(move));
+        assertTrue(parallel.getNodes() >= parallel.getMain().getNodes());
+    }
+
+    @Test
+    public void testPlayerThreads() throws Exception {
+        Player player = new Player(1);
+        player.setThreads(2);
+        assertEquals(2, player.getThreads());
+        int move = player.makePlay(new int[]{3,3,3,3,3,3,0,3,3,3,3,3,3,0}, 50);
+        assertTrue(move >= 1 && move <= 6);
+        player.setThreads(1);
+        assertEquals(1, player.getThreads());
+    }
+}
@@ -0,0 +1,50 @@
+package algorithm;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PerftTest {
+
+    private Perft perft;
+
+    @Before
+    public void setUp() throws Exception {
+        this.perft = new Perft(false);
+    }
+
+    @Test
+    public void testReferenceCounts() throws Exception {
+        assertNull(perft.verify(7));
+    }
+
+    @Test
+    public void testBulkCounts() throws Exception {
+        assertNull(new Perft(true).verify(8));
+    }
+
+    @Test
+    public void testDivide() throws Exception {
+        Position start = new Position(4);
+        long[] counts = perft.divide(start, 6);
+        long total = 0;
+        for (long count : counts)
+            total += count;
+        assertEquals(perft.perft(start, 6), total);
+    }
+
+    @Test
+    public void testGameOver() throws Exception {
+        Position position = new Position(new int[]{0,0,0,0,0,0,18,0,0,0,0,0,0,18}, 0);
+        assertEquals(1, perft.perft(position, 5));
+    }
+
+    @Test
+    public void testOtherBoardSizes() throws Exception {
+        // counts of an independent implementation of Kalah(m,n)
+        assertEquals(14108, perft.perft(new Position(4, 3), 8));
+        assertEquals(24423, perft.perft(new Position(4, 4), 8));
+        assertEquals(764052, perft.perft(new Position(8, 3), 7));
+    }
+}
@@ -26,28 +26,24 @@ public class PlayerTest {
     @Parameterized.Parameters
     public static Collection<Object[]> data() {
 //        int[] b1a = new int[]{0,3,3,3,3,3,3,0,3,3,3,3,3,3,0};
-        //Expected move percentage array: x,x,x,x,100,x
-        //Expected score diference array: x,x,x,x, 2 ,x
+        //Only store 2 is legal; it wins by 1
         int[] b1a = new int[] { 0, 2, 0, 0, 0, 0, 0,
                 0, 0, 0, 0, 1, 0, 0};
 
 
         //should be player 2
-        //Expected move percentage array: x,x,x,x,100,x
-        //Expected score diference array: x,x,x,x, 2 ,x
+        //Only store 2 (piece 11) is legal; it draws
         int[] b1b = new int[] { 0, 0, 0, 1, 0, 0, 0,
                 0, 0, 0, 0, 1, 0, 0};
 
 
-        //Expected move percentage array: x,100,100,x,x,x
-        //Expected score diference array: x, 8 , 6 ,x,x,x
+        //Store 2 captures and wins by 8, store 3 only wins by 4
         int[] b2a = new int[] { 0, 3, 4, 0, 0, 0, 0,
                 0, 1, 0, 0, 0, 0, 0};
 
 
         //should be player 2
-        //Expected move percentage array: x,x,x,100,100,x
-        //Expected score diference array: x,x,x, 6 , 8 ,x
+        //Store 3 (piece 10) draws, store 2 (piece 11) loses by 4
         int[] b2b = new int[] { 0, 1, 0, 0, 0, 0, 0,
                 0, 0, 0, 4, 3, 0, 0};
 
@@ -79,10 +75,10 @@ public class PlayerTest {
 
         return Arrays.asList(new Object[][] {
                 //  board   player  exp
-                {   b1a,    1,      4}, //[0]
-                {   b1b,    2,      5}, //[1]
-                {   b2a,    1,      4}, //[2]
-                {   b2b,    2,      5}, //[3]
+                {   b1a,    1,      2}, //[0]
+                {   b1b,    2,      2}, //[1]
+                {   b2a,    1,      2}, //[2]
+                {   b2b,    2,      3}, //[3]
                 {   b3a,    1,      3}, //[4]
                 {   b4b,    1,      3}, //[5],
                 {   b5a,    1,      6}
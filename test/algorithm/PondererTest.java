@@ -0,0 +1,48 @@
+package algorithm;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PondererTest {
+
+    @Test
+    public void testPonderedReplyMatchesSearch() throws Exception {
+        Search main = new Search(new ScoreEvaluator(), 6);
+        main.setTable(new TranspositionTable(1 << 12));
+        Ponderer ponderer = new Ponderer(main);
+        try {
+            Position position = new Position();
+            ponderer.start(position, 0, 0);
+            ponderer.finish();
+            // five replies hand the move back, and store 2 earns another
+            // turn after which five more do
+            assertEquals(10, ponderer.getPondered());
+
+            Position reply = new Position(position);
+            reply.sow(0);
+            reply.sow(1);
+            SearchStats stats = ponderer.stop(reply);
+            assertNotNull(stats);
+            assertEquals(SearchStats.PONDER, stats.getSource());
+            assertEquals(new Search(new ScoreEvaluator(), 6).search(reply), stats.getMove());
+            assertEquals(0, ponderer.getPondered());
+        } finally {
+            ponderer.shutdown();
+        }
+    }
+
+    @Test
+    public void testNothingPonderedAfterExtraTurn() throws Exception {
+        Ponderer ponderer = new Ponderer(new Search(new ScoreEvaluator(), 4));
+        try {
+            // store 3 ends in the house and the player moves again
+            ponderer.start(new Position(), 3, 0);
+            ponderer.finish();
+            assertEquals(0, ponderer.getPondered());
+            assertNull(ponderer.stop(new Position()));
+        } finally {
+            ponderer.shutdown();
+        }
+    }
+}
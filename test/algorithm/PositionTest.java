@@ -0,0 +1,210 @@
+package algorithm;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PositionTest {
+
+    private Position position;
+
+    @Before
+    public void setUp() throws Exception {
+        this.position = new Position();
+    }
+
+    @Test
+    public void testInitialPosition() throws Exception {
+        int[] exp = new int[]{3,3,3,3,3,3,0,3,3,3,3,3,3,0};
+        assertArrayEquals(exp, position.toIntArray());
+        assertEquals(1, position.getTurn());
+    }
+
+    @Test
+    public void testSowSwitchesTurn() throws Exception {
+        assertEquals(2, position.sow(0));
+        int[] exp = new int[]{0,4,4,4,3,3,0,3,3,3,3,3,3,0};
+        assertArrayEquals(exp, position.toIntArray());
+    }
+
+    @Test
+    public void testSowExtraTurn() throws Exception {
+        assertEquals(1, position.sow(3));
+        int[] exp = new int[]{3,3,3,0,4,4,1,3,3,3,3,3,3,0};
+        assertArrayEquals(exp, position.toIntArray());
+    }
+
+    @Test
+    public void testSowSkipsOpponentsHouse() throws Exception {
+        position.set(new int[]{0,0,0,0,0,0,0,0,1,0,0,0,9,0}, 2);
+        assertEquals(1, position.sow(0));
+        int[] exp = new int[]{1,1,1,1,1,1,0,1,2,0,0,0,0,1};
+        assertArrayEquals(exp, position.toIntArray());
+    }
+
+    @Test
+    public void testSowCapture() throws Exception {
+        position.set(new int[]{0,1,0,0,0,1,0,0,1,0,4,0,0,0}, 1);
+        assertEquals(2, position.sow(1));
+        int[] exp = new int[]{0,0,0,0,0,1,5,0,1,0,0,0,0,0};
+        assertArrayEquals(exp, position.toIntArray());
+    }
+
+    @Test
+    public void testSowGameOver() throws Exception {
+        position.set(new int[]{0,0,0,0,0,1,1,0,0,1,1,0,0,1}, 1);
+        assertEquals(0, position.sow(5));
+        int[] exp = new int[]{0,0,0,0,0,0,2,0,0,0,0,0,0,3};
+        assertArrayEquals(exp, position.toIntArray());
+        assertTrue(position.isGameOver());
+    }
+
+    @Test
+    public void testAcross() throws Exception {
+        assertEquals(12, Position.across(0));
+        assertEquals(7, Position.across(5));
+        assertEquals(12, Position.piece(0, 2));
+        assertEquals(6, Position.houseIndex(1));
+        assertEquals(13, Position.houseIndex(2));
+    }
+
+    @Test
+    public void testSetFromBuffer() throws Exception {
+        int[] board = new int[]{1,0,2,0,1,1,14,2,0,1,0,1,1,12};
+        ByteBuffer buffer = ByteBuffer.allocateDirect(18);
+        for (int i = 0; i < board.length; i++)
+            buffer.put(i + 2, (byte) board[i]);
+        position.set(buffer, 2, 2);
+        assertArrayEquals(board, position.toIntArray());
+        assertEquals(2, position.getTurn());
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    public void testSetRejectsBoardsThatDoNotFit() throws Exception {
+        int[][] boards = {
+                {1,0,-1,0,1,1,14,2,0,1,0,1,1,12},
+                {1,0,200,0,1,1,14,2,0,1,0,1,1,12},
+                {1,0,2,0,1,1,64,2,0,1,0,1,1,64}};
+        for (int[] board : boards) {
+            try {
+                position.set(board, 1);
+                fail(Arrays.toString(board));
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+        try {
+            position.set(new int[]{1,0,2,0,1,1,14,2,0,1,0,1,1,12}, 3);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        // a byte above 127 reads as a negative number of seeds
+        ByteBuffer buffer = ByteBuffer.allocate(Position.PIECES);
+        buffer.put(0, (byte) 200);
+        try {
+            position.set(buffer, 0, 1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        position.set(new int[]{1,0,2,0,1,1,14,2,0,1,0,1,1,12}, 0);
+        assertEquals(0, position.getTurn());
+    }
+
+    @Test
+    public void testLegalMoves() throws Exception {
+        position.set(new int[]{1,0,2,0,1,1,14,2,0,1,0,1,1,12}, 1);
+        assertEquals(0x35, position.legalMoves());
+        int[] moves = new int[Position.STORES];
+        assertEquals(4, position.moves(moves));
+        assertArrayEquals(new int[]{0,2,4,5}, Arrays.copyOf(moves, 4));
+
+        // store 12 is move 0 and store 7 is move 5 for player 2
+        position.setTurn(2);
+        assertEquals(0x2B, position.legalMoves());
+        position.setTurn(0);
+        assertEquals(0, position.legalMoves());
+    }
+
+    @Test
+    public void testLandingOfPlayerTwo() throws Exception {
+        // store 12 is sown first by player 2, so move 2 reaches the house
+        position = new Position();
+        position.setTurn(2);
+        assertEquals(Position.STORES, position.landing(2, 3, 2));
+        assertTrue(position.isExtraTurn(2, 2));
+        assertFalse(position.isExtraTurn(3, 2));
+        assertTrue(position.isExtraTurn(3, 1));
+
+        // store 11 sows into empty store 12 and captures store 0
+        position.set(new int[]{5,1,1,1,1,1,0,0,0,0,0,1,0,0}, 2);
+        assertEquals(6, position.capture(1, 2));
+        assertEquals(0, position.capture(0, 2));
+        Position sown = new Position(position);
+        sown.sow(1);
+        assertEquals(6, sown.house(2));
+    }
+
+    @Test
+    public void testMakeUnmakeRestoresPosition() throws Exception {
+        Random random = new Random(5);
+        for (int game = 0; game < 200; game++) {
+            Position played = new Position(1 + game % 6);
+            while (played.getTurn() != 0) {
+                int[] moves = new int[Position.STORES];
+                int move = moves[random.nextInt(played.moves(moves))];
+                Position before = new Position(played);
+                Position sown = new Position(played);
+                int undo = played.make(move);
+                assertEquals(sown.sow(move), played.getTurn());
+                assertEquals(sown.result(1), played.result(1));
+
+                played.unmake(undo);
+                assertArrayEquals(before.toIntArray(), played.toIntArray());
+                assertEquals(before.getTurn(), played.getTurn());
+                played.make(move);
+            }
+        }
+    }
+
+    @Test
+    public void testMakeLeavesStoresAtGameOver() throws Exception {
+        position.set(new int[]{0,0,0,0,0,1,1,0,0,1,1,0,0,1}, 1);
+        int undo = position.make(5);
+        assertEquals(0, position.getTurn());
+        assertArrayEquals(new int[]{0,0,0,0,0,0,2,0,0,1,1,0,0,1}, position.toIntArray());
+        assertEquals(-1, position.result(1));
+        position.unmake(undo);
+        assertArrayEquals(new int[]{0,0,0,0,0,1,1,0,0,1,1,0,0,1}, position.toIntArray());
+        assertEquals(1, position.getTurn());
+    }
+
+    @Test
+    public void testOtherBoardSize() throws Exception {
+        position = new Position(4, 5);
+        assertArrayEquals(new int[]{5,5,5,5,0,5,5,5,5,0}, position.toIntArray());
+        assertEquals(9, position.houseOf(2));
+        assertEquals(5, position.acrossOf(3));
+        assertEquals(8, position.pieceOf(0, 2));
+
+        // store 0 of player 2 ends in its house
+        position.set(new int[]{1,0,0,2,3,0,0,2,1,4}, 2);
+        assertEquals(2, position.sow(0));
+        assertArrayEquals(new int[]{1,0,0,2,3,0,0,2,0,5}, position.toIntArray());
+        // store 0 of player 2 sows through its house into player 1's stores
+        position.set(new int[]{1,0,0,2,3,0,1,0,3,4}, 2);
+        assertEquals(1, position.sow(0));
+        assertArrayEquals(new int[]{2,1,0,2,3,0,1,0,0,5}, position.toIntArray());
+        // store 3 of player 2 ends in empty store 6 and captures store 2
+        position.set(new int[]{1,2,4,2,3,1,0,0,3,4}, 2);
+        assertEquals(1, position.sow(3));
+        assertArrayEquals(new int[]{1,2,0,2,3,0,0,0,3,9}, position.toIntArray());
+    }
+}
@@ -0,0 +1,59 @@
+package algorithm;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SearchStatsTest {
+
+    @Test
+    public void testFixedDepthSearch() throws Exception {
+        Search search = new Search(new ScoreEvaluator(), 8);
+        search.setTable(new TranspositionTable(1 << 16));
+        int move = search.search(new Position());
+        SearchStats stats = search.getStats();
+
+        assertEquals(SearchStats.SEARCH, stats.getSource());
+        assertEquals(move, stats.getMove());
+        assertEquals(search.getScore(), stats.getScore());
+        assertEquals(8, stats.getDepth());
+        assertEquals(search.getNodes(), stats.getNodes());
+        assertEquals(1, stats.getIterations());
+        assertEquals(stats.getNodes(), stats.getIterationNodes(0));
+        assertTrue(stats.getCutoffs() > 0);
+        assertTrue(stats.getTableProbes() > 0);
+        assertTrue(stats.getTableHitRate() > 0 && stats.getTableHitRate() < 1);
+        assertTrue(stats.getBranchingFactor() > 1);
+        assertTrue(stats.getNanos() >= stats.getIterationNanos(0));
+    }
+
+    @Test
+    public void testTimedSearchRecordsIterations() throws Exception {
+        Search search = new Search(new ScoreEvaluator(), 1);
+        search.search(new Position(), 50);
+        SearchStats stats = search.getStats();
+
+        long nodes = 0;
+        for (int i = 0; i < stats.getIterations(); i++) {
+            assertEquals(i + 1, stats.getIterationDepth(i));
+            nodes += stats.getIterationNodes(i);
+        }
+        assertEquals(stats.getDepth(), stats.getIterations());
+        assertTrue(nodes <= stats.getNodes());
+        assertEquals(0, stats.getTableProbes());
+    }
+
+    @Test
+    public void testJson() throws Exception {
+        Search search = new Search(new ScoreEvaluator(), 2);
+        search.search(new Position());
+        String json = search.getStats().toJson();
+        assertTrue(json, json.startsWith("{\"source\":\"search\",\"store\":"));
+        assertTrue(json, json.contains("\"iterations\":[{\"depth\":2,"));
+        assertTrue(json, json.endsWith("}]}"));
+
+        String lookup = SearchStats.lookup(SearchStats.BOOK, 3, 1000).toJson();
+        assertTrue(lookup, lookup.startsWith("{\"source\":\"book\",\"store\":4,"));
+        assertTrue(lookup, lookup.endsWith("\"iterations\":[]}"));
+    }
+}
@@ -0,0 +1,106 @@
+package algorithm;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SearchTest {
+
+    private Search search;
+
+    @Before
+    public void setUp() throws Exception {
+        this.search = new Search(new ScoreEvaluator(), 6);
+    }
+
+    @Test
+    public void testGameOver() throws Exception {
+        Position position = new Position(new int[]{0,0,0,0,0,0,18,0,0,0,0,0,0,18}, 0);
+        assertEquals(-1, search.search(position));
+    }
+
+    @Test
+    public void testSingleMove() throws Exception {
+        Position position = new Position(new int[]{0,0,0,2,0,0,10,1,1,1,1,1,1,10}, 1);
+        assertEquals(3, search.search(position));
+    }
+
+    @Test
+    public void testTakesCapture() throws Exception {
+        Position position = new Position(new int[]{1,0,1,0,0,0,0,1,0,6,0,0,0,0}, 1);
+        assertEquals(2, search.search(position));
+        assertTrue(search.getScore() > 0);
+    }
+
+    @Test
+    public void testTimedSearch() throws Exception {
+        Position position = new Position();
+        long start = System.currentTimeMillis();
+        int move = search.search(position, 50);
+        assertTrue(System.currentTimeMillis() - start < 1000);
+        assertTrue(position.isLegal(move));
+        assertTrue(search.getDepthReached() >= 1);
+    }
+
+    @Test
+    public void testTimedSearchStopsWhenSolved() throws Exception {
+        Position position = new Position(new int[]{0,0,0,0,1,1,16,0,0,0,0,1,1,16}, 1);
+        long start = System.currentTimeMillis();
+        search.search(position, 60000);
+        assertTrue(System.currentTimeMillis() - start < 10000);
+        assertTrue(search.getDepthReached() < Search.MAX_DEPTH);
+    }
+
+    @Test
+    public void testMatchesMinimax() throws Exception {
+        Random random = new Random(7);
+        for (int game = 0; game < 20; game++) {
+            Position position = new Position();
+            // play a few random moves
+            for (int i = 0; i < 6 && position.getTurn() != 0; i++) {
+                int move = random.nextInt(6);
+                if (position.isLegal(move))
+                    position.sow(move);
+            }
+            if (position.getTurn() == 0)
+                continue;
+            for (int depth = 1; depth <= 5; depth++) {
+                search.setDepth(depth);
+                search.search(position);
+                assertEquals(minimax(position, depth, 36), search.getScore());
+            }
+        }
+    }
+
+    /**
+     * A plain minimax without pruning used as a reference.
+     */
+    private int minimax(Position position, int depth, int total) {
+        int player = position.getTurn();
+        if (depth == 0)
+            return position.score(player);
+        int best = -Search.INFINITY;
+        for (int move = 0; move < 6; move++) {
+            if (!position.isLegal(move))
+                continue;
+            Position child = new Position(position);
+            int turn = child.sow(move);
+            int score;
+            if (turn == 0)
+                score = Search.finalScore(child, player);
+            else if (child.house(player) * 2 > total)
+                score = Search.WIN + child.score(player);
+            else if (child.house(3 - player) * 2 > total)
+                score = -Search.WIN + child.score(player);
+            else if (turn == player)
+                score = minimax(child, depth - 1, total);
+            else
+                score = -minimax(child, depth - 1, total);
+            best = Math.max(best, score);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,95 @@
+package algorithm;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TournamentTest {
+
+    private static List<Tournament.Engine> engines(String... specs) throws Exception {
+        List<Tournament.Engine> engines = new ArrayList<Tournament.Engine>();
+        for (String spec : specs)
+            engines.add(Tournament.Engine.parse(spec));
+        return engines;
+    }
+
+    @Test
+    public void testParseEngine() throws Exception {
+        Tournament.Engine engine = Tournament.Engine.parse("deep:depth=14:millis=50:table=256");
+        assertEquals("deep", engine.getName());
+        assertEquals(14, engine.getDepth());
+        assertEquals(50, engine.getMillis());
+        assertEquals(256, engine.getTableSize());
+    }
+
+    @Test
+    public void testEveryPairPlaysBothSides() throws Exception {
+        Tournament tournament = new Tournament(engines("a:depth=1", "b:depth=2", "c:depth=3"),
+                4, 4, 7);
+        List<Tournament.Result> results = tournament.play(2);
+        // 3 pairs, 4 openings, 2 sides
+        assertEquals(24, results.size());
+        int first = 0;
+        for (Tournament.Result result : results) {
+            assertEquals(36, result.getHouse1() + result.getHouse2());
+            if (result.getFirst() == 0)
+                first++;
+        }
+        assertEquals(8, first);
+    }
+
+    @Test
+    public void testRepeatable() throws Exception {
+        List<Tournament.Result> one = new Tournament(engines("a:depth=1", "b:depth=3"), 6, 6, 3)
+                .play(3);
+        List<Tournament.Result> two = new Tournament(engines("a:depth=1", "b:depth=3"), 6, 6, 3)
+                .play(1);
+        for (int i = 0; i < one.size(); i++) {
+            assertEquals(one.get(i).getHouse1(), two.get(i).getHouse1());
+            assertEquals(one.get(i).getOpening(), two.get(i).getOpening());
+        }
+    }
+
+    @Test
+    public void testStrongerEngineRatedHigher() throws Exception {
+        Tournament tournament = new Tournament(engines("weak:depth=1", "strong:depth=8"),
+                10, 4, 5);
+        tournament.play(2);
+        double[] ratings = tournament.ratings();
+        assertTrue(ratings[1] > ratings[0]);
+        assertEquals(0, ratings[0] + ratings[1], 1e-6);
+        assertTrue(tournament.standings().get(0).startsWith("strong,20,"));
+    }
+
+    @Test
+    public void testWriteCsv() throws Exception {
+        Tournament tournament = new Tournament(engines("a:depth=1", "b:depth=2"), 2, 2, 1);
+        tournament.play(1);
+        File games = File.createTempFile("games", ".csv");
+        games.deleteOnExit();
+        File standings = File.createTempFile("standings", ".csv");
+        standings.deleteOnExit();
+        tournament.writeGames(games);
+        tournament.writeStandings(standings);
+        assertEquals(5, lines(games));
+        assertEquals(3, lines(standings));
+    }
+
+    private static int lines(File file) throws Exception {
+        BufferedReader in = new BufferedReader(new FileReader(file));
+        try {
+            int count = 0;
+            while (in.readLine() != null)
+                count++;
+            return count;
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package algorithm;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TraceTest {
+
+    @After
+    public void tearDown() throws Exception {
+        Trace.setEnabled(Trace.ENABLED);
+        Trace.setLevel(Trace.INFO);
+        Trace.setSampleRate(1);
+        Trace.setBufferSize(10000);
+    }
+
+    private static List<String> dump() throws Exception {
+        File file = File.createTempFile("trace", ".log");
+        file.deleteOnExit();
+        int count = Trace.dump(file.getPath());
+        List<String> lines = new ArrayList<String>();
+        BufferedReader in = new BufferedReader(new FileReader(file));
+        try {
+            for (String line = in.readLine(); line != null; line = in.readLine())
+                lines.add(line);
+        } finally {
+            in.close();
+        }
+        assertEquals(count, lines.size());
+        return lines;
+    }
+
+    @Test
+    public void testRingBufferKeepsNewest() throws Exception {
+        Trace.setEnabled(true);
+        Trace.setBufferSize(3);
+        for (int i = 1; i <= 5; i++)
+            Trace.log(Trace.INFO, "message " + i);
+        String thread = Thread.currentThread().getName();
+        List<String> lines = dump();
+        assertEquals(3, lines.size());
+        assertEquals("INFO [" + thread + "] message 3", lines.get(0));
+        assertEquals("INFO [" + thread + "] message 5", lines.get(2));
+
+        Trace.clear();
+        assertEquals(0, dump().size());
+    }
+
+    @Test
+    public void testLevelFilter() throws Exception {
+        Trace.setEnabled(true);
+        Trace.setLevel(Trace.INFO);
+        assertTrue(Trace.isOn(Trace.ERROR));
+        assertFalse(Trace.isOn(Trace.DEBUG));
+        Trace.log(Trace.DEBUG, "dropped");
+        Trace.log(Trace.ERROR, "kept");
+        List<String> lines = dump();
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).startsWith("ERROR ["));
+        assertTrue(lines.get(0).endsWith("kept"));
+    }
+
+    @Test
+    public void testSampling() throws Exception {
+        Trace.setEnabled(true);
+        Trace.setLevel(Trace.NODE);
+        Trace.setSampleRate(4);
+        int sampled = 0;
+        for (int i = 0; i < 12; i++) {
+            if (Trace.sample(Trace.NODE))
+                sampled++;
+        }
+        assertEquals(3, sampled);
+
+        Trace.setLevel(Trace.DEBUG);
+        assertFalse(Trace.sample(Trace.NODE));
+    }
+
+    @Test
+    public void testSamplingAcrossThreads() throws Exception {
+        Trace.setEnabled(true);
+        Trace.setLevel(Trace.NODE);
+        Trace.setSampleRate(10);
+        Trace.clear();
+        final AtomicInteger sampled = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(new Runnable() {
+                public void run() {
+                    for (int i = 0; i < 100000; i++) {
+                        if (Trace.sample(Trace.NODE))
+                            sampled.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        // every event is counted once, so exactly one in ten is sampled
+        assertEquals(40000, sampled.get());
+    }
+
+    @Test
+    public void testDisabledByDefault() throws Exception {
+        if (Trace.ENABLED)
+            return;
+        assertFalse(Trace.isOn(Trace.ERROR));
+        assertFalse(Trace.sample(Trace.NODE));
+        Trace.log(Trace.ERROR, "dropped");
+        File file = File.createTempFile("trace", ".log");
+        file.deleteOnExit();
+        assertEquals(0, Trace.dump(file.getPath()));
+    }
+
+    @Test
+    public void testSearchIsTraced() throws Exception {
+        // only run with -Dkalah.trace=true, which keeps the call sites
+        if (!Trace.ENABLED)
+            return;
+        Player player = new Player(1);
+        player.setDepth(4);
+        player.makePlay(new int[]{3,3,3,3,3,3,0,3,3,3,3,3,3,0});
+        boolean played = false;
+        for (String line : dump())
+            played |= line.startsWith("INFO [") && line.contains("player 1 plays");
+        assertTrue(played);
+    }
+
+    @Test
+    public void testPlayerIsQuiet() throws Exception {
+        PrintStream out = System.out;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(bytes));
+        try {
+            Player player = new Player(1);
+            player.setDepth(4);
+            player.makePlay(new int[]{3,3,3,3,3,3,0,3,3,3,3,3,3,0});
+            player.simulateMove(0, 1, new int[]{3,3,3,3,3,3,0,3,3,3,3,3,3,0});
+        } finally {
+            System.setOut(out);
+        }
+        if (!Trace.ENABLED)
+            assertEquals(0, bytes.size());
+    }
+}
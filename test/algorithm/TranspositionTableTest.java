@@ -0,0 +1,73 @@
+package algorithm;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TranspositionTableTest {
+
+    private TranspositionTable table;
+
+    @Before
+    public void setUp() throws Exception {
+        this.table = new TranspositionTable(1024);
+    }
+
+    @Test
+    public void testStoreAndProbe() throws Exception {
+        long hash = new Position().hash();
+        assertEquals(0, table.probe(hash));
+        table.store(hash, 7, TranspositionTable.LOWER, -10042, 5);
+        long entry = table.probe(hash);
+        assertEquals(7, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(entry));
+        assertEquals(-10042, TranspositionTable.score(entry));
+        assertEquals(5, TranspositionTable.move(entry));
+        assertEquals(1, table.getHits());
+        assertEquals(1, table.getMisses());
+    }
+
+    @Test
+    public void testNoMove() throws Exception {
+        table.store(42, 1, TranspositionTable.UPPER, 3, -1);
+        assertEquals(-1, TranspositionTable.move(table.probe(42)));
+    }
+
+    @Test
+    public void testReplacement() throws Exception {
+        // both hashes map to the same slot
+        long a = 1;
+        long b = 1 + 1024;
+        table.store(a, 10, TranspositionTable.EXACT, 1, 0);
+        table.store(b, 3, TranspositionTable.EXACT, 2, 0);
+        assertEquals(0, table.probe(b));
+        assertEquals(1, TranspositionTable.score(table.probe(a)));
+
+        // entries of an older search are always replaced
+        table.newSearch();
+        table.store(b, 3, TranspositionTable.EXACT, 2, 0);
+        assertEquals(0, table.probe(a));
+        assertEquals(2, TranspositionTable.score(table.probe(b)));
+    }
+
+    @Test
+    public void testHashIncludesTurn() throws Exception {
+        int[] board = new int[]{3,3,3,3,3,3,0,3,3,3,3,3,3,0};
+        assertFalse(new Position(board, 1).hash() == new Position(board, 2).hash());
+        assertEquals(new Position(board, 1).hash(), new Position().hash());
+    }
+
+    @Test
+    public void testSearchWithTable() throws Exception {
+        // a position small enough to be searched to the end of the game
+        Position position = new Position(new int[]{1,0,2,0,1,1,14,2,0,1,0,1,1,12}, 1);
+        Search plain = new Search(new ScoreEvaluator(), 40);
+        Search cached = new Search(new ScoreEvaluator(), 40);
+        cached.setTable(table);
+        plain.search(position);
+        cached.search(position);
+        assertEquals(plain.getScore(), cached.getScore());
+        assertTrue(cached.getNodes() <= plain.getNodes());
+    }
+}
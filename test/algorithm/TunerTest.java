@@ -0,0 +1,55 @@
+package algorithm;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TunerTest {
+
+    private static Tuner tuner;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        tuner = new Tuner(2);
+        tuner.generate(200, 2, new LinearEvaluator(), 16);
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        tuner.shutdown();
+    }
+
+    @Test
+    public void testGenerate() throws Exception {
+        // every game lasts more than a couple of moves after the opening
+        assertTrue(tuner.size() > 200 * 5);
+    }
+
+    @Test
+    public void testSlopeFavoursHouseLead() throws Exception {
+        int[] weights = new LinearEvaluator().getWeights();
+        double slope = tuner.fitSlope(weights);
+        assertTrue(slope > 0);
+        double[] start = new double[weights.length];
+        for (int f = 0; f < weights.length; f++)
+            start[f] = weights[f];
+        assertTrue(tuner.error(start, slope) < tuner.error(start, slope * 8));
+        assertTrue(tuner.error(start, slope) < tuner.error(start, slope / 8));
+    }
+
+    @Test
+    public void testTuneLowersError() throws Exception {
+        int[] start = new LinearEvaluator().getWeights();
+        double slope = tuner.fitSlope(start);
+        int[] tuned = tuner.tune(start, slope, 200, 1.0);
+        double[] before = new double[start.length];
+        double[] after = new double[start.length];
+        for (int f = 0; f < start.length; f++) {
+            before[f] = start[f];
+            after[f] = tuned[f];
+        }
+        assertTrue(tuner.error(after, slope) < tuner.error(before, slope));
+    }
+}